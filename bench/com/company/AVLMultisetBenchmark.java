@@ -0,0 +1,19 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>SearchTreeOperations</code> on an <code>AVLMultiset</code>,
+ * which counts the copies of a key in one node.  On the
+ * <code>zipfian</code> stream, where a few keys repeat many times,
+ * compare with <code>AVLTreeBenchmark</code>, which links every copy
+ * into a node of its own.
+ */
+@State(Scope.Thread)
+public class AVLMultisetBenchmark extends SearchTreeOperations {
+    protected BinarySearchTree<Integer> newTree()
+    {
+        return new AVLMultiset<Integer>();
+    }
+}
@@ -0,0 +1,446 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>SearchTreeOperations</code> on an <code>AVLTree</code>, plus
+ * what only it has: bulk loading and batch updates, range queries and
+ * order statistics, each way of comparing keys, and the fork-join
+ * build, reduce and set operations.  Operations over a whole tree or
+ * batch are timed in single-shot mode, per batch, as
+ * <code>insert</code> is.
+ */
+@State(Scope.Thread)
+public class AVLTreeBenchmark extends SearchTreeOperations {
+    protected BinarySearchTree<Integer> newTree()
+    {
+        return new AVLTree<Integer>();
+    }
+
+    /**
+     * A tree of the first half of the keys and the second half to add
+     * to it, and a tree of all the keys to delete the second half
+     * from, rebuilt before every batch.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"sorted", "reverse", "random", "zipfian"})
+        public String dist;
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        private Integer[] keys;
+        private List<Integer> second;
+        private AVLTree<Integer> half;
+        private AVLTree<Integer> full;
+
+        @Setup(Level.Trial)
+        public void generate()
+        {
+            keys = BenchmarkKeys.keys(dist, n);
+            second = Arrays.asList(keys).subList(n / 2, n);
+        }
+
+        @Setup(Level.Iteration)
+        public void load()
+        {
+            half = new AVLTree<Integer>(Arrays.copyOf(keys, n / 2));
+            full = new AVLTree<Integer>(keys);
+        }
+    }
+
+    /**
+     * A tree of the keys with, for each query, a range of about 100
+     * keys starting at a random key, a random rank and a key of the
+     * tree.
+     */
+    @State(Scope.Thread)
+    public static class Queries {
+        @Param({"sorted", "reverse", "random", "zipfian"})
+        public String dist;
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        private AVLTree<Integer> tree;
+        private Integer[] lo;
+        private Integer[] hi;
+        private int[] ranks;
+        private Integer[] keys;
+        private int next;
+
+        @Setup
+        public void load()
+        {
+            keys = BenchmarkKeys.keys(dist, n);
+            tree = new AVLTree<Integer>(keys);
+            Integer[] sorted = keys.clone();
+            Arrays.sort(sorted);
+
+            Random random = new Random(BenchmarkKeys.SEED + 1);
+            lo = new Integer[n];
+            hi = new Integer[n];
+            ranks = new int[n];
+            for (int i = 0; i < n; i++) {
+                int j = random.nextInt(n);
+                lo[i] = sorted[j];
+                hi[i] = sorted[Math.min(j + 99, n - 1)];
+                ranks[i] = 1 + random.nextInt(n);
+            }
+        }
+
+        int next()
+        {
+            int i = next;
+            next = i + 1 == n ? 0 : i + 1;
+            return i;
+        }
+    }
+
+    /**
+     * A tree of the keys compared in one of the ways a tree can
+     * compare them: on the <code>Integer</code> fast path, through
+     * <code>compareTo</code> or through a <code>Comparator</code>.
+     * Before the trees of <code>compareTo</code> are searched, trees
+     * of <code>Double</code> and <code>String</code> keys are searched
+     * through the same call site, as in a program holding trees of
+     * several kinds.
+     */
+    @State(Scope.Thread)
+    public static class Ordered {
+        @Param({"sorted", "reverse", "random", "zipfian"})
+        public String dist;
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        @Param({"Integer", "compareTo", "Comparator"})
+        public String compare;
+
+        private AVLTree<Integer> tree;
+        private Integer[] keys;
+        private int next;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void load()
+        {
+            keys = BenchmarkKeys.keys(dist, n);
+
+            if (compare.equals("Comparator"))
+                tree = new AVLTree<Integer>(keys, new Comparator<Integer>() {
+                    public int compare(Integer a, Integer b) {
+                        return Integer.compare(a.intValue(), b.intValue());
+                    }
+                });
+            else
+                tree = new AVLTree<Integer>(keys);
+
+            if (compare.equals("compareTo")) {
+                tree.order = BinarySearchTree.NATURAL;
+
+                Double[] doubles = new Double[n];
+                String[] strings = new String[n];
+                for (int i = 0; i < n; i++) {
+                    doubles[i] = keys[i] / 3.0;
+                    strings[i] = Integer.toString(keys[i]);
+                }
+                AVLTree<Double> doubleTree = new AVLTree<Double>(doubles);
+                AVLTree<String> stringTree = new AVLTree<String>(strings);
+                doubleTree.order = BinarySearchTree.NATURAL;
+                stringTree.order = BinarySearchTree.NATURAL;
+                for (int i = 0; i < n; i++) {
+                    doubleTree.iterativeSearch((Comparable) doubles[i]);
+                    stringTree.iterativeSearch((Comparable) strings[i]);
+                }
+            }
+        }
+
+        Comparable next()
+        {
+            Integer k = keys[next];
+            next = next + 1 == n ? 0 : next + 1;
+            return k;
+        }
+    }
+
+    /**
+     * A tree of the keys built by <code>parallelBuild</code>, and the
+     * function and operator that sum the keys.
+     */
+    @State(Scope.Thread)
+    public static class Parallel {
+        @Param({"sorted", "reverse", "random", "zipfian"})
+        public String dist;
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        private AVLTree<Integer> tree;
+
+        private final Function<Integer, Long> toLong = new Function<Integer, Long>() {
+            public Long apply(Integer k) {
+                return (long) k;
+            }
+        };
+
+        private final BinaryOperator<Long> sum = new BinaryOperator<Long>() {
+            public Long apply(Long a, Long b) {
+                return a + b;
+            }
+        };
+
+        @Setup
+        public void load()
+        {
+            tree = AVLTree.parallelBuild(BenchmarkKeys.keys(dist, n), null);
+        }
+    }
+
+    /**
+     * Two trees of <code>n</code> distinct keys each, half of which
+     * they share, rebuilt before every set operation, which empties
+     * one and relinks the other.
+     */
+    @State(Scope.Thread)
+    public static class Operands {
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        private Integer[] evens;
+        private Integer[] mixed;
+        private AVLTree<Integer> a;
+        private AVLTree<Integer> b;
+
+        @Setup(Level.Trial)
+        public void generate()
+        {
+            evens = new Integer[n];
+            mixed = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                evens[i] = 2 * i;
+                mixed[i] = 2 * i + (i % 2 == 0 ? 1 : 0);    // every other key shared
+            }
+        }
+
+        @Setup(Level.Iteration)
+        public void load()
+        {
+            a = new AVLTree<Integer>(evens);
+            b = new AVLTree<Integer>(mixed);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> bulkLoad()
+    {
+        return new AVLTree<Integer>(keys);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> insertAll(Batch batch)
+    {
+        batch.half.insertAll(batch.second);
+        return batch.half;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> insertLoop(Batch batch)
+    {
+        for (Integer k : batch.second)
+            batch.half.insert(k);
+        return batch.half;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> deleteAll(Batch batch)
+    {
+        batch.full.deleteAll(batch.second);
+        return batch.full;
+    }
+
+    @Benchmark
+    public int range(Queries queries)
+    {
+        int i = queries.next();
+        int found = 0;
+        for (Integer k : queries.tree.range(queries.lo[i], true, queries.hi[i], true))
+            found++;
+
+        return found;
+    }
+
+    @Benchmark
+    public int rangeCount(Queries queries)
+    {
+        int i = queries.next();
+        return queries.tree.rangeCount(queries.lo[i], true, queries.hi[i], true);
+    }
+
+    /**
+     * Sums the 100 keys from a key of the tree up, as
+     * <code>BPlusTreeBenchmark.scan100</code> does.
+     */
+    @Benchmark
+    public long scan100(Queries queries)
+    {
+        long sum = 0;
+        int m = 0;
+        for (Integer k : queries.tree.range(queries.lo[queries.next()], true, null, false)) {
+            sum += k;
+            if (++m == 100)
+                break;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Answers the query of <code>range</code> with a walk of the whole
+     * tree and a filter, as callers did before there was
+     * <code>range</code>.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int filteredWalk(Queries queries)
+    {
+        int i = queries.next();
+        final int lo = queries.lo[i];
+        final int hi = queries.hi[i];
+        final int[] found = new int[1];
+        queries.tree.inorderWalk(new BinaryTree.Visitor() {
+            @SuppressWarnings("unchecked")
+            public Object visit(Object handle) {
+                int k = (Integer) ((BinaryTree<Integer>.Node) handle).data;
+                if (k >= lo && k <= hi)
+                    found[0]++;
+                return null;
+            }
+        });
+
+        return found[0];
+    }
+
+    @Benchmark
+    public Object select(Queries queries)
+    {
+        return queries.tree.select(queries.ranks[queries.next()]);
+    }
+
+    @Benchmark
+    public int rank(Queries queries)
+    {
+        return queries.tree.rank(queries.keys[queries.next()]);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object orderedSearch(Ordered ordered)
+    {
+        return ordered.tree.iterativeSearch(ordered.next());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> parallelBuild()
+    {
+        return AVLTree.parallelBuild(keys, null);
+    }
+
+    /**
+     * Sums the keys with a loop over the iterator, the one-thread
+     * counterpart of <code>parallelReduce</code>.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public long iterate(Parallel parallel)
+    {
+        long sum = 0;
+        for (Integer k : parallel.tree)
+            sum += k;
+
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public long parallelReduce(Parallel parallel)
+    {
+        return parallel.tree.parallelReduce(0L, parallel.toLong, parallel.sum);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public long parallelStream(Parallel parallel)
+    {
+        return parallel.tree.parallelStream().map(parallel.toLong).reduce(0L, parallel.sum);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> union(Operands operands)
+    {
+        operands.a.union(operands.b);
+        return operands.a;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> intersection(Operands operands)
+    {
+        operands.a.intersection(operands.b);
+        return operands.a;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Integer> difference(Operands operands)
+    {
+        operands.a.difference(operands.b);
+        return operands.a;
+    }
+}
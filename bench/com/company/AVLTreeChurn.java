@@ -0,0 +1,146 @@
+package com.company;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Runs a long stream of random operations on an <code>AVLTree</code>
+ * and on an <code>AVLMultiset</code> of between <code>n</code> and
+ * <code>2n</code> keys: inserts and deletes of keys drawn from a range
+ * of <code>2n</code>, so that some repeat, in about equal numbers, and
+ * searches.  After every operation it checks the height against the
+ * AVL bound of 1.4405 log2(m + 2) - 0.3277 for <code>m</code> nodes;
+ * ten times along the way it checks every invariant with
+ * <code>verify</code> and compares the keys, in order and with their
+ * counts, against a <code>TreeMap</code> doing the same operations.
+ * At the end it deletes every key, checks the empty tree, and fills it
+ * again.  The first broken check ends the run with an
+ * <code>IllegalStateException</code>.
+ *
+ * <p>
+ *
+ * Run with the element count, the number of operations and a seed,
+ * e.g. <code>java com.company.AVLTreeChurn 1000000 100000000 42</code>.
+ */
+public class AVLTreeChurn {
+
+    public static void main(String[] args)
+    {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        long ops = args.length > 1 ? Long.parseLong(args[1]) : 10000000L;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : BenchmarkKeys.SEED;
+
+        churn(new AVLTree<Integer>(), "AVLTree", n, ops, seed);
+        churn(new AVLMultiset<Integer>(), "AVLMultiset", n, ops, seed);
+    }
+
+    /**
+     * Runs the stream of operations on one empty tree and reports the
+     * throughput and the greatest height seen.
+     */
+    @SuppressWarnings("unchecked")
+    private static void churn(AVLTree<Integer> tree, String name, int n, long ops, long seed)
+    {
+        Random random = new Random(seed);
+        TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+        Integer[] live = new Integer[2 * n];     // one entry per copy in the tree
+        int size = 0;
+        for (; size < n; size++) {
+            live[size] = random.nextInt(2 * n);
+            insert(tree, model, live[size]);
+        }
+        check(tree, model);
+
+        int maxHeight = tree.root.height;
+        long start = System.nanoTime();
+        for (long i = 1; i <= ops; i++) {
+            int op = random.nextInt(3);
+            if (op < 2)         // an update, keeping between n and 2n keys
+                op = size <= n ? 0 : size == live.length ? 1 : op;
+
+            if (op == 0) {
+                live[size] = random.nextInt(2 * n);
+                insert(tree, model, live[size++]);
+            }
+            else if (op == 1) {
+                int j = random.nextInt(size);
+                delete(tree, model, live[j]);
+                live[j] = live[--size];
+            }
+            else if (tree.isNil(tree.iterativeSearch((Comparable) live[random.nextInt(size)])))
+                throw new IllegalStateException(name + " lost a key");
+
+            maxHeight = Math.max(maxHeight, checkHeight(tree, model));
+            if (i % Math.max(ops / 10, 1) == 0)
+                check(tree, model);
+        }
+        double rate = ops * 1e9 / (System.nanoTime() - start);
+
+        while (size > 0)
+            delete(tree, model, live[--size]);
+        check(tree, model);
+        if (!tree.isNil(tree.root) || tree.size() != 0)
+            throw new IllegalStateException(name + " not empty after deleting every key");
+        for (; size < n; size++) {
+            live[size] = random.nextInt(2 * n);
+            insert(tree, model, live[size]);
+        }
+        check(tree, model);
+
+        System.out.printf("%s churn n=%d: %.0f ops/s, height %d within the AVL bound, verified%n",
+                          name, n, rate, maxHeight);
+    }
+
+    private static void insert(AVLTree<Integer> tree, TreeMap<Integer, Integer> model, Integer k)
+    {
+        tree.insert(k);
+        Integer count = model.get(k);
+        model.put(k, count == null ? 1 : count + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void delete(AVLTree<Integer> tree, TreeMap<Integer, Integer> model, Integer k)
+    {
+        tree.delete(tree.iterativeSearch((Comparable) k));
+        int count = model.get(k);
+        if (count == 1)
+            model.remove(k);
+        else
+            model.put(k, count - 1);
+    }
+
+    /**
+     * Checks the height against the AVL bound for the tree's number of
+     * nodes, which in an <code>AVLMultiset</code> is the number of
+     * distinct keys, and returns the height.
+     */
+    private static int checkHeight(AVLTree<Integer> tree, TreeMap<Integer, Integer> model)
+    {
+        int nodes = tree instanceof AVLMultiset ? model.size() : tree.size();
+        int height = tree.root.height;
+        if (height > 1.4405 * Math.log(nodes + 2) / Math.log(2) - 0.3277)
+            throw new IllegalStateException("height " + height + " over the AVL bound for " + nodes + " nodes");
+
+        return height;
+    }
+
+    /**
+     * Checks the tree's invariants and height, and that it holds the
+     * keys of the model, in order and as many times each.
+     */
+    private static void check(AVLTree<Integer> tree, TreeMap<Integer, Integer> model)
+    {
+        tree.verify();
+        checkHeight(tree, model);
+
+        Iterator<Integer> keys = tree.iterator();
+        for (Map.Entry<Integer, Integer> e : model.entrySet())
+            for (int c = 0; c < e.getValue(); c++)
+                if (!keys.hasNext() || !keys.next().equals(e.getKey()))
+                    throw new IllegalStateException("keys differ from the model at " + e.getKey());
+        if (keys.hasNext())
+            throw new IllegalStateException("keys beyond the model's");
+    }
+}
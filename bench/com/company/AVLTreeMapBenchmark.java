@@ -0,0 +1,109 @@
+package com.company;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counts a Zipfian stream of <code>n</code> events three ways: in an
+ * <code>AVLTree</code> of key-count pairs, updated by deleting the old
+ * pair and inserting a new one; with <code>AVLTreeMap.merge</code>,
+ * which updates the count in place; and with
+ * <code>TreeMap.merge</code> for reference.  Each is timed over the
+ * whole stream, in single-shot mode; the gc profiler's normalized
+ * allocation, divided by <code>n</code>, is the bytes per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class AVLTreeMapBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private Integer[] events;
+
+    private final BiFunction<Integer, Integer, Integer> sum = new BiFunction<Integer, Integer, Integer>() {
+        public Integer apply(Integer a, Integer b) {
+            return a + b;
+        }
+    };
+
+    /**
+     * Key and count wrapped in one object, ordered by key: how counts
+     * were kept in a tree before <code>AVLTreeMap</code>.
+     */
+    private static class Counted implements Comparable<Counted> {
+        final int key;
+        final int count;
+
+        Counted(int key, int count)
+        {
+            this.key = key;
+            this.count = count;
+        }
+
+        public int compareTo(Counted o)
+        {
+            return key < o.key ? -1 : key == o.key ? 0 : 1;
+        }
+    }
+
+    @Setup
+    public void generate()
+    {
+        events = BenchmarkKeys.keys("zipfian", n);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public AVLTree<Counted> pairs()
+    {
+        AVLTree<Counted> pairs = new AVLTree<Counted>();
+        for (Integer k : events) {
+            BinaryTree<Counted>.Node x = pairs.iterativeSearch((Comparable) new Counted(k, 0));
+            int count = 1;
+            if (!pairs.isNil(x)) {
+                count += ((Counted) x.data).count;
+                pairs.delete(x);
+            }
+            pairs.insert(new Counted(k, count));
+        }
+
+        return pairs;
+    }
+
+    @Benchmark
+    public AVLTreeMap<Integer, Integer> merge()
+    {
+        AVLTreeMap<Integer, Integer> map = new AVLTreeMap<Integer, Integer>();
+        for (Integer k : events)
+            map.merge(k, 1, sum);
+
+        return map;
+    }
+
+    @Benchmark
+    public TreeMap<Integer, Integer> treeMapMerge()
+    {
+        TreeMap<Integer, Integer> map = new TreeMap<Integer, Integer>();
+        for (Integer k : events)
+            map.merge(k, 1, sum);
+
+        return map;
+    }
+}
@@ -0,0 +1,80 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>ceiling</code> and <code>floor</code> on an
+ * <code>AVLTreeSet</code> of <code>n</code> keys scattered over the
+ * <code>int</code> range, for probes that are mostly absent from the
+ * set, next to the same queries on a <code>TreeSet</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AVLTreeSetBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private AVLTreeSet<Integer> set;
+    private TreeSet<Integer> reference;
+    private Integer[] probes;
+    private int next;
+
+    @Setup
+    public void load()
+    {
+        Integer[] keys = BenchmarkKeys.keys("random", n);
+        for (int i = 0; i < n; i++)
+            keys[i] = BenchmarkKeys.scatter(keys[i]);
+        set = new AVLTreeSet<Integer>(Arrays.asList(keys));
+        reference = new TreeSet<Integer>(Arrays.asList(keys));
+
+        Random random = new Random(BenchmarkKeys.SEED + 1);
+        probes = new Integer[n];
+        for (int i = 0; i < n; i++)
+            probes[i] = random.nextInt();
+    }
+
+    private Integer nextProbe()
+    {
+        Integer k = probes[next];
+        next = next + 1 == n ? 0 : next + 1;
+        return k;
+    }
+
+    @Benchmark
+    public Integer ceiling()
+    {
+        return set.ceiling(nextProbe());
+    }
+
+    @Benchmark
+    public Integer floor()
+    {
+        return set.floor(nextProbe());
+    }
+
+    @Benchmark
+    public Integer treeSetCeiling()
+    {
+        return reference.ceiling(nextProbe());
+    }
+}
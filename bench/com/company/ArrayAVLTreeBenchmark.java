@@ -0,0 +1,50 @@
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>LongKeyOperations</code> on an <code>ArrayAVLTree&lt;Long&gt;</code>,
+ * whose nodes are slots of parallel arrays and whose keys are boxed,
+ * as a caller holding <code>long</code>s would box them.
+ */
+@State(Scope.Thread)
+public class ArrayAVLTreeBenchmark extends LongKeyOperations {
+    private ArrayAVLTree<Long> tree;
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new ArrayAVLTree<Long>();
+        for (int i = 0; i < n; i++)
+            tree.insert(keys[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public ArrayAVLTree<Long> insert()
+    {
+        ArrayAVLTree<Long> empty = new ArrayAVLTree<Long>();
+        for (int i = 0; i < n; i++)
+            empty.insert(keys[i]);     // boxes, as a caller would
+
+        return empty;
+    }
+
+    @Benchmark
+    public int search()
+    {
+        return tree.search(boxed[nextIndex()]);
+    }
+}
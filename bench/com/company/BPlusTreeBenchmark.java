@@ -0,0 +1,97 @@
+package com.company;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert, search and scans of 100 keys from a random starting key on
+ * <code>BPlusTree</code>s of orders 16, 64 and 256 holding
+ * <code>n</code> random keys; <code>AVLTreeBenchmark.scan100</code> is
+ * the same scan on an <code>AVLTree</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BPlusTreeBenchmark {
+    @Param({"16", "64", "256"})
+    public int order;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private Integer[] keys;
+    private Integer[] probes;
+    private BPlusTree<Integer> tree;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        keys = BenchmarkKeys.keys("random", n);
+        probes = BenchmarkKeys.keys("random", n, new Random(BenchmarkKeys.SEED + 1));
+    }
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new BPlusTree<Integer>(order, null);
+        for (Integer k : keys)
+            tree.insert(k);
+    }
+
+    private Integer nextProbe()
+    {
+        Integer k = probes[next];
+        next = next + 1 == n ? 0 : next + 1;
+        return k;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public BPlusTree<Integer> insert()
+    {
+        BPlusTree<Integer> empty = new BPlusTree<Integer>(order, null);
+        for (Integer k : keys)
+            empty.insert(k);
+
+        return empty;
+    }
+
+    @Benchmark
+    public Integer search()
+    {
+        return tree.search(nextProbe());
+    }
+
+    @Benchmark
+    public long scan100()
+    {
+        long sum = 0;
+        int m = 0;
+        for (Integer k : tree.range(nextProbe(), true, null, false)) {
+            sum += k;
+            if (++m == 100)
+                break;
+        }
+
+        return sum;
+    }
+}
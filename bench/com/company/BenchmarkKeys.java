@@ -0,0 +1,119 @@
+package com.company;
+
+import java.util.Random;
+
+/**
+ * Key streams shared by the benchmarks.  Every stream is drawn from a
+ * generator seeded the same way, so that a benchmark and the states
+ * it uses see the same keys without passing them around.
+ */
+final class BenchmarkKeys {
+    /** Skew of the Zipfian key stream. */
+    static final double ZIPF_THETA = 0.99;
+
+    /** Seed of the key streams. */
+    static final long SEED = 42;
+
+    private BenchmarkKeys()
+    {
+    }
+
+    /**
+     * Returns <code>n</code> keys drawn from the named distribution:
+     * <code>sorted</code>, <code>reverse</code> and
+     * <code>random</code> orders of <code>0..n-1</code>, or a
+     * <code>zipfian</code> stream of ranks scattered over the
+     * <code>int</code> range, in which a few keys repeat many times.
+     * The keys are boxed up front so that boxing is not charged to
+     * the measured operations.
+     */
+    static Integer[] keys(String dist, int n)
+    {
+        return keys(dist, n, new Random(SEED));
+    }
+
+    /**
+     * Returns <code>n</code> keys drawn from the named distribution,
+     * as <code>keys(String, int)</code> does, using a given source of
+     * randomness.
+     */
+    static Integer[] keys(String dist, int n, Random random)
+    {
+        Integer[] keys = new Integer[n];
+
+        if (dist.equals("zipfian")) {
+            Zipf zipf = new Zipf(n, ZIPF_THETA);
+            for (int i = 0; i < n; i++)
+                keys[i] = scatter((int) zipf.next(random));
+        }
+        else {
+            for (int i = 0; i < n; i++)
+                keys[i] = dist.equals("reverse") ? n - i : i;
+            if (dist.equals("random"))
+                for (int i = n - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    Integer t = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = t;
+                }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Returns <code>n</code> ranks of <code>0..n-1</code> drawn from a
+     * Zipfian distribution, rank 0 the most frequent.
+     */
+    static int[] zipfRanks(int n, Random random)
+    {
+        Zipf zipf = new Zipf(n, ZIPF_THETA);
+        int[] ranks = new int[n];
+        for (int i = 0; i < n; i++)
+            ranks[i] = (int) zipf.next(random);
+
+        return ranks;
+    }
+
+    /** Spreads a rank over the <code>int</code> range, so that hot keys are not neighbors. */
+    static int scatter(int rank)
+    {
+        return rank * 0x9E3779B1;
+    }
+
+    /**
+     * Zipfian generator over the ranks <code>0..n-1</code>, after Gray
+     * et al., "Quickly generating billion-record synthetic databases".
+     */
+    private static class Zipf {
+        private final long n;
+        private final double theta;
+        private final double zetan;
+        private final double alpha;
+        private final double eta;
+
+        Zipf(long n, double theta)
+        {
+            this.n = n;
+            this.theta = theta;
+            double zeta2 = 1 + Math.pow(0.5, theta);
+            double sum = 0;
+            for (long i = 1; i <= n; i++)
+                sum += 1 / Math.pow(i, theta);
+            zetan = sum;
+            alpha = 1 / (1 - theta);
+            eta = (1 - Math.pow(2.0 / n, 1 - theta)) / (1 - zeta2 / zetan);
+        }
+
+        long next(Random random)
+        {
+            double u = random.nextDouble();
+            double uz = u * zetan;
+            if (uz < 1)
+                return 0;
+            if (uz < 1 + Math.pow(0.5, theta))
+                return 1;
+            return Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
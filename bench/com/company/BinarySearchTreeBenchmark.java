@@ -0,0 +1,27 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>SearchTreeOperations</code> on the unbalanced
+ * <code>BinarySearchTree</code>.
+ */
+@State(Scope.Thread)
+public class BinarySearchTreeBenchmark extends SearchTreeOperations {
+    /**
+     * Largest sorted or reverse-sorted stream fed to the tree, which
+     * degenerates to a list on such input; larger cases fail at setup
+     * instead of running for hours.
+     */
+    private static final int DEGENERATE_LIMIT = 20000;
+
+    protected BinarySearchTree<Integer> newTree()
+    {
+        if (n > DEGENERATE_LIMIT && (dist.equals("sorted") || dist.equals("reverse")))
+            throw new IllegalStateException("BinarySearchTree degenerates to a list on "
+                                            + dist + " input of " + n + " keys");
+
+        return new BinarySearchTree<Integer>();
+    }
+}
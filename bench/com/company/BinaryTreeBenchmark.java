@@ -0,0 +1,16 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>TreeOperations</code> on a <code>BinaryTree</code>, which
+ * places keys at random and finds them through its hash index.
+ */
+@State(Scope.Thread)
+public class BinaryTreeBenchmark extends TreeOperations {
+    protected BinaryTree<Integer> newTree()
+    {
+        return new BinaryTree<Integer>();
+    }
+}
@@ -0,0 +1,50 @@
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>LongKeyOperations</code> on an <code>AVLTree&lt;Long&gt;</code>,
+ * one object per node, the baseline of the pooled trees.
+ */
+@State(Scope.Thread)
+public class BoxedAVLTreeBenchmark extends LongKeyOperations {
+    private AVLTree<Long> tree;
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new AVLTree<Long>();
+        for (int i = 0; i < n; i++)
+            tree.insert(keys[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Long> insert()
+    {
+        AVLTree<Long> empty = new AVLTree<Long>();
+        for (int i = 0; i < n; i++)
+            empty.insert(keys[i]);      // boxes, as a caller would
+
+        return empty;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object search()
+    {
+        return tree.iterativeSearch((Comparable) boxed[nextIndex()]);
+    }
+}
@@ -0,0 +1,81 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches of a <code>ConcurrentAVLTree</code> of <code>n</code> random
+ * keys shared by all threads: alone, with as many readers as
+ * <code>-t</code> asks for, and in the <code>readWrite</code> group,
+ * three readers beside one writer that inserts a key and deletes it
+ * again, so that every read goes through a snapshot the writer is
+ * replacing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentAVLTreeBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private Integer[] keys;
+    private ConcurrentAVLTree<Integer> tree;
+
+    /**
+     * Each thread's own source of keys.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final Random random = new Random();
+    }
+
+    @Setup
+    public void load()
+    {
+        keys = BenchmarkKeys.keys("random", n);
+        tree = new ConcurrentAVLTree<Integer>();
+        tree.insertAll(Arrays.asList(keys));
+    }
+
+    @Benchmark
+    public Integer search(Cursor cursor)
+    {
+        return tree.search(keys[cursor.random.nextInt(n)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public Integer read(Cursor cursor)
+    {
+        return tree.search(keys[cursor.random.nextInt(n)]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public boolean write(Cursor cursor)
+    {
+        Integer k = -1 - cursor.random.nextInt(n);      // never one of keys
+        tree.insert(k);
+        return tree.delete(k);
+    }
+}
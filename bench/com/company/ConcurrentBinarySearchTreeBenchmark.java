@@ -0,0 +1,97 @@
+package com.company;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Updates of a <code>ConcurrentBinarySearchTree</code> shared by as
+ * many writers as <code>-t</code> asks for, each inserting or removing,
+ * at random, a random key: in <code>disjoint</code> from a residue
+ * class of its own modulo <code>STRIPES</code>, so that writers only
+ * meet on the paths to their keys, and in <code>overlapping</code>
+ * from one pool shared by all.  The tree starts with <code>n</code>
+ * random keys of residue 0, which no writer touches, and is rebuilt
+ * before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentBinarySearchTreeBenchmark {
+    /** Residue classes of the keys; writers share one beyond 63. */
+    static final int STRIPES = 64;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private Integer[] keys;
+    private ConcurrentBinarySearchTree<Integer> tree;
+
+    /**
+     * Each writer's residue class and source of keys.
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+        private int stripe;
+        private Random random;
+
+        @Setup
+        public void assign(ThreadParams threads)
+        {
+            stripe = 1 + threads.getThreadIndex() % (STRIPES - 1);
+            random = new Random(threads.getThreadIndex());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        keys = BenchmarkKeys.keys("random", n);
+    }
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new ConcurrentBinarySearchTree<Integer>();
+        for (Integer k : keys)
+            tree.insert(k * STRIPES);
+    }
+
+    @Benchmark
+    public boolean disjoint(Writer writer)
+    {
+        return update(writer, writer.random.nextInt(n) * STRIPES + writer.stripe);
+    }
+
+    @Benchmark
+    public boolean overlapping(Writer writer)
+    {
+        return update(writer, writer.random.nextInt(n) * STRIPES + 1);
+    }
+
+    private boolean update(Writer writer, int k)
+    {
+        if (writer.random.nextBoolean()) {
+            tree.insert(k);
+            return true;
+        }
+
+        return tree.remove(k);
+    }
+}
@@ -0,0 +1,181 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs writer threads against one <code>ConcurrentBinarySearchTree</code>
+ * and checks the result against a sequential model.  Each writer
+ * inserts or removes, at random, keys drawn either from a residue
+ * class of its own (<code>disjoint</code>) or from one small range
+ * shared by all (<code>overlapping</code>), and records the net change
+ * it made to each key: one per insert and minus one per removal that
+ * succeeded, by <code>remove</code> with the key or by
+ * <code>delete</code> of the node <code>search</code> found.  The sum of
+ * those changes is what the tree must hold, whatever the
+ * interleaving.  Meanwhile a reader iterates over the tree, checking
+ * that every copy it gets is in order.
+ *
+ * <p>
+ *
+ * When the writers are done, the keys, in order and with their
+ * counts, <code>size()</code>, the parent links and the order of the
+ * nodes are compared with the model.  The first broken check ends
+ * the run with an <code>IllegalStateException</code>.
+ *
+ * <p>
+ *
+ * Run with the number of writers, the operations per writer and a
+ * seed, e.g.
+ * <code>java com.company.ConcurrentBinarySearchTreeStress 8 1000000 42</code>.
+ */
+public class ConcurrentBinarySearchTreeStress {
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : BenchmarkKeys.SEED;
+
+        stress("disjoint", threads, ops, seed, 1 << 16);
+        stress("overlapping", threads, ops, seed, 1 << 12);
+    }
+
+    /**
+     * Runs one round of writers and a reader on an empty tree, then
+     * checks the tree against the model.
+     *
+     * @param range Keys each writer draws from.
+     */
+    private static void stress(String mode, final int threads, final int ops, long seed, final int range)
+        throws InterruptedException
+    {
+        final ConcurrentBinarySearchTree<Integer> tree = new ConcurrentBinarySearchTree<Integer>();
+        final boolean disjoint = mode.equals("disjoint");
+        final ArrayList<TreeMap<Integer, Integer>> changes = new ArrayList<TreeMap<Integer, Integer>>();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] writers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int stripe = t;
+            final Random random = new Random(seed + t);
+            final TreeMap<Integer, Integer> changed = new TreeMap<Integer, Integer>();
+            changes.add(changed);
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < ops; i++) {
+                        int k = random.nextInt(range);
+                        if (disjoint)
+                            k = k * threads + stripe;
+                        int change = 0;
+                        if (random.nextBoolean()) {
+                            tree.insert(k);
+                            change = 1;
+                        }
+                        else if (random.nextBoolean()) {
+                            if (tree.remove(k))
+                                change = -1;
+                        }
+                        else {
+                            BinaryTree<Integer>.Node x = tree.search(k);
+                            try {
+                                if (!tree.isNil(x)) {
+                                    tree.delete(x);
+                                    change = -1;
+                                }
+                            }
+                            catch (IllegalArgumentException e) {
+                                // another writer removed x first
+                            }
+                        }
+                        if (change != 0) {
+                            Integer c = changed.get(k);
+                            changed.put(k, (c == null ? 0 : c) + change);
+                        }
+                    }
+                }
+            });
+        }
+
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long iterations = 0;
+                while (running.get() || iterations == 0) {
+                    Integer previous = null;
+                    for (Integer k : tree) {
+                        if (previous != null && previous > k)
+                            failure.compareAndSet(null, "iterator out of order: " + previous + " before " + k);
+                        previous = k;
+                    }
+                    iterations++;
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+        for (Thread writer : writers)
+            writer.start();
+        reader.start();
+        for (Thread writer : writers)
+            writer.join();
+        running.set(false);
+        reader.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (failure.get() != null)
+            throw new IllegalStateException(mode + ": " + failure.get());
+
+        TreeMap<Integer, Integer> model = new TreeMap<Integer, Integer>();
+        for (TreeMap<Integer, Integer> changed : changes)
+            for (Map.Entry<Integer, Integer> e : changed.entrySet()) {
+                Integer c = model.get(e.getKey());
+                model.put(e.getKey(), (c == null ? 0 : c) + e.getValue());
+            }
+        check(mode, tree, model);
+
+        System.out.printf("ConcurrentBinarySearchTree %s: %d writers, %.0f updates/s, %d keys, matches the model%n",
+                          mode, threads, threads * (double) ops / seconds, tree.size());
+    }
+
+    /**
+     * Checks the tree, now that no update is running, against the sum
+     * of the writers' changes.
+     */
+    private static void check(String mode, ConcurrentBinarySearchTree<Integer> tree, TreeMap<Integer, Integer> model)
+    {
+        int expected = 0;
+        Iterator<Integer> keys = tree.iterator();
+        for (Map.Entry<Integer, Integer> e : model.entrySet()) {
+            if (e.getValue() < 0)
+                throw new IllegalStateException(mode + ": key " + e.getKey() + " removed more often than inserted");
+            expected += e.getValue();
+            for (int c = 0; c < e.getValue(); c++)
+                if (!keys.hasNext() || !keys.next().equals(e.getKey()))
+                    throw new IllegalStateException(mode + ": keys differ from the model at " + e.getKey());
+        }
+        if (keys.hasNext())
+            throw new IllegalStateException(mode + ": keys beyond the model's");
+        if (tree.size() != expected)
+            throw new IllegalStateException(mode + ": size " + tree.size() + " but " + expected + " keys");
+
+        // The walks use the links, not the locks: check those too.
+        ArrayList<BinaryTree<Integer>.Node> nodes = tree.convertToArray(tree.root);
+        if (nodes.size() != expected || !tree.isNil(tree.root) && !tree.isNil(tree.root.parent))
+            throw new IllegalStateException(mode + ": links reach " + nodes.size() + " nodes of " + expected);
+        for (int i = 0; i < nodes.size(); i++) {
+            BinaryTree<Integer>.Node x = nodes.get(i);
+            if (!tree.isNil(x.left) && x.left.parent != x || !tree.isNil(x.right) && x.right.parent != x)
+                throw new IllegalStateException(mode + ": bad parent link below " + x.data);
+            if (i > 0 && nodes.get(i - 1).data.compareTo(x.data) > 0)
+                throw new IllegalStateException(mode + ": nodes out of order at " + x.data);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.company;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <code>freeze</code> of an <code>AVLTree</code> of <code>n</code>
+ * random keys, <code>thaw</code> of the copy, and searches of the
+ * frozen copy next to the same searches of the tree, for
+ * <code>Integer</code> keys and for <code>String</code> keys, whose
+ * comparisons cost more than the cache misses the frozen layout
+ * saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrozenTreeBenchmark {
+    @Param({"Integer", "String"})
+    public String type;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private AVLTree<Comparable> tree;
+    private FrozenTree<Comparable> frozen;
+    private Comparable[] probes;
+    private int next;
+
+    @Setup
+    public void load()
+    {
+        Integer[] keys = BenchmarkKeys.keys("random", n);
+        Integer[] lookups = BenchmarkKeys.keys("random", n, new Random(BenchmarkKeys.SEED + 1));
+        Comparable[] typed = new Comparable[n];
+        probes = new Comparable[n];
+        for (int i = 0; i < n; i++) {
+            typed[i] = type.equals("String") ? Integer.toString(keys[i]) : keys[i];
+            probes[i] = type.equals("String") ? Integer.toString(lookups[i]) : lookups[i];
+        }
+
+        tree = new AVLTree<Comparable>(typed);
+        frozen = tree.freeze();
+    }
+
+    private Comparable nextProbe()
+    {
+        Comparable k = probes[next];
+        next = next + 1 == n ? 0 : next + 1;
+        return k;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public FrozenTree<Comparable> freeze()
+    {
+        return tree.freeze();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public AVLTree<Comparable> thaw()
+    {
+        return frozen.thaw();
+    }
+
+    @Benchmark
+    public Comparable search()
+    {
+        return frozen.search(nextProbe());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object treeSearch()
+    {
+        return tree.iterativeSearch(nextProbe());
+    }
+}
@@ -0,0 +1,68 @@
+package com.company;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Random <code>long</code> keys for the trees that pool their nodes in
+ * arrays or in native memory, with the same keys boxed for the trees
+ * that take objects.  A subclass per tree times <code>insert</code> of
+ * all <code>n</code> keys into an empty tree, in single-shot mode, and
+ * <code>search</code> of one key; the gc profiler's normalized
+ * allocation for <code>insert</code>, divided by <code>n</code>, is the
+ * heap a tree takes per entry, keys included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class LongKeyOperations {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    protected int n;
+
+    /** The keys, in the order they are inserted. */
+    protected long[] keys;
+
+    /** <code>keys</code> boxed, for the trees that search for objects. */
+    protected Long[] boxed;
+
+    /** Index in <code>keys</code> of the key the next operation uses. */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        Random random = new Random(BenchmarkKeys.SEED);
+        keys = new long[n];
+        boxed = new Long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextLong();
+            boxed[i] = keys[i];
+        }
+    }
+
+    /**
+     * Returns the index of the key for the next operation, going
+     * through the keys in insertion order and around again.
+     */
+    protected int nextIndex()
+    {
+        int i = next;
+        next = i + 1 == n ? 0 : i + 1;
+        return i;
+    }
+}
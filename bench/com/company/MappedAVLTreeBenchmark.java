@@ -0,0 +1,92 @@
+package com.company;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of durability in a <code>MappedAVLTree</code>: <code>insert</code>
+ * of <code>n</code> random keys into an empty tree file, making them
+ * durable <code>batch</code> at a time.  A batch of 1 commits every
+ * insert on its own, with two forces each; larger batches share one
+ * journal write and two forces among their inserts.  The keys are
+ * fewer than in <code>LongKeyOperations</code>, since the unbatched
+ * run is bound by the disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappedAVLTreeBenchmark {
+    @Param({"1000", "10000"})
+    private int n;
+
+    @Param({"1", "10", "100", "10000"})
+    private int batch;
+
+    private long[] keys;
+
+    private File path;
+
+    private MappedAVLTree tree;
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        Random random = new Random(BenchmarkKeys.SEED);
+        keys = new long[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = random.nextLong();
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException
+    {
+        path = File.createTempFile("mapped", ".avl");
+        path.delete();
+        tree = new MappedAVLTree(path.getPath());
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException
+    {
+        tree.close();
+        path.delete();
+        new File(path.getPath() + ".journal").delete();
+    }
+
+    @Benchmark
+    public MappedAVLTree insert()
+    {
+        for (int i = 0; i < n; i += batch) {
+            int end = Math.min(i + batch, n);
+            if (batch == 1)
+                tree.insert(keys[i]);
+            else {
+                tree.beginBatch();
+                for (int j = i; j < end; j++)
+                    tree.insert(keys[j]);
+                tree.commitBatch();
+            }
+        }
+
+        return tree;
+    }
+}
@@ -0,0 +1,49 @@
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>LongKeyOperations</code> on an <code>OffHeapAVLTree</code>, whose
+ * nodes live in native memory, out of reach of the collector.
+ */
+@State(Scope.Thread)
+public class OffHeapAVLTreeBenchmark extends LongKeyOperations {
+    private OffHeapAVLTree tree;
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new OffHeapAVLTree();
+        for (int i = 0; i < n; i++)
+            tree.insert(keys[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public OffHeapAVLTree insert()
+    {
+        OffHeapAVLTree empty = new OffHeapAVLTree();
+        for (int i = 0; i < n; i++)
+            empty.insert(keys[i]);
+
+        return empty;
+    }
+
+    @Benchmark
+    public int search()
+    {
+        return tree.search(keys[nextIndex()]);
+    }
+}
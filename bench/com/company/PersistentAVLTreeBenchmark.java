@@ -0,0 +1,91 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Insert, search and <code>snapshot</code> on a
+ * <code>PersistentAVLTree</code> of <code>n</code> random keys, next
+ * to taking a consistent copy of an <code>AVLTree</code> of the same
+ * keys through <code>convertToArray</code>.  <code>insert</code> is
+ * timed over all the keys, in single-shot mode, so that the gc
+ * profiler's normalized allocation, divided by <code>n</code>, is the
+ * cost of the path copying per insert.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistentAVLTreeBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int n;
+
+    private Integer[] keys;
+    private PersistentAVLTree<Integer> tree;
+    private AVLTree<Integer> avl;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        keys = BenchmarkKeys.keys("random", n);
+        avl = new AVLTree<Integer>(keys);
+    }
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = new PersistentAVLTree<Integer>();
+        for (Integer k : keys)
+            tree.insert(k);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public PersistentAVLTree<Integer> insert()
+    {
+        PersistentAVLTree<Integer> empty = new PersistentAVLTree<Integer>();
+        for (Integer k : keys)
+            empty.insert(k);
+
+        return empty;
+    }
+
+    @Benchmark
+    public Integer search()
+    {
+        Integer k = keys[next];
+        next = next + 1 == n ? 0 : next + 1;
+        return tree.search(k);
+    }
+
+    @Benchmark
+    public PersistentAVLTree<Integer> snapshot()
+    {
+        return tree.snapshot();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public ArrayList<BinaryTree<Integer>.Node> convertToArray()
+    {
+        return avl.convertToArray(avl.root);
+    }
+}
@@ -0,0 +1,15 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>SearchTreeOperations</code> on a <code>RedBlackTree</code>.
+ */
+@State(Scope.Thread)
+public class RedBlackTreeBenchmark extends SearchTreeOperations {
+    protected BinarySearchTree<Integer> newTree()
+    {
+        return new RedBlackTree<Integer>();
+    }
+}
@@ -0,0 +1,102 @@
+package com.company;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Operations of <code>TreeOperations</code> plus those that need key
+ * order: <code>iterativeSearch</code>, <code>successor</code> and
+ * <code>predecessor</code>, and searches for skewed streams of the
+ * tree's keys, which favor trees that keep hot keys near the root.
+ */
+@State(Scope.Thread)
+public abstract class SearchTreeOperations extends TreeOperations {
+    /**
+     * Creates an empty search tree of the class measured.
+     */
+    protected abstract BinarySearchTree<Integer> newTree();
+
+    /**
+     * Lookups of the tree's keys drawn from a skewed stream:
+     * <code>zipfian</code>, where the key inserted <i>i</i>th is
+     * drawn as often as rank <i>i</i> of a Zipfian distribution, or
+     * <code>hot64</code>, where nine lookups in ten go to the first
+     * 64 keys inserted and the rest are uniform.
+     */
+    @State(Scope.Thread)
+    public static class Skewed {
+        @Param({"sorted", "reverse", "random", "zipfian"})
+        public String dist;
+
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int n;
+
+        @Param({"zipfian", "hot64"})
+        public String skew;
+
+        private Integer[] probes;
+        private int next;
+
+        @Setup
+        public void generate()
+        {
+            Integer[] keys = BenchmarkKeys.keys(dist, n);
+            Random random = new Random(BenchmarkKeys.SEED + 1);
+            probes = new Integer[n];
+
+            if (skew.equals("zipfian")) {
+                int[] ranks = BenchmarkKeys.zipfRanks(n, random);
+                for (int i = 0; i < n; i++)
+                    probes[i] = keys[ranks[i]];
+            }
+            else
+                for (int i = 0; i < n; i++)
+                    probes[i] = keys[random.nextInt(10) > 0 ? random.nextInt(Math.min(64, n)) : random.nextInt(n)];
+        }
+
+        Comparable next()
+        {
+            Integer k = probes[next];
+            next = next + 1 == probes.length ? 0 : next + 1;
+            return k;
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object iterativeSearch()
+    {
+        return searchTree().iterativeSearch((Comparable) keys[nextIndex()]);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object skewedSearch(Skewed skewed)
+    {
+        return searchTree().iterativeSearch(skewed.next());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object successor()
+    {
+        return searchTree().successor((BinaryTree<Integer>.Node) handles[nextIndex()]);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object predecessor()
+    {
+        return searchTree().predecessor((BinaryTree<Integer>.Node) handles[nextIndex()]);
+    }
+
+    private BinarySearchTree<Integer> searchTree()
+    {
+        return (BinarySearchTree<Integer>) tree;
+    }
+}
@@ -0,0 +1,18 @@
+package com.company;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <code>SearchTreeOperations</code> on a <code>SplayTree</code>.  Its
+ * <code>skewedSearch</code> scores, next to
+ * <code>AVLTreeBenchmark</code>'s, show what splaying gains on skewed
+ * lookups.
+ */
+@State(Scope.Thread)
+public class SplayTreeBenchmark extends SearchTreeOperations {
+    protected BinarySearchTree<Integer> newTree()
+    {
+        return new SplayTree<Integer>();
+    }
+}
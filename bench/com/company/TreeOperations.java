@@ -0,0 +1,170 @@
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Operations every tree of the <code>BinaryTree</code> family has:
+ * insert, search, delete and the three walks, on trees of
+ * <code>n</code> keys from sorted, reverse-sorted, random and Zipfian
+ * streams.  A subclass per tree class names the tree to build.
+ *
+ * <p>
+ *
+ * Operations on one key are measured in throughput and in sample-time
+ * mode, which gives latency percentiles up to p99.99; the allocation
+ * rate comes from the gc profiler, <code>-prof gc</code>.
+ * <code>insert</code> and <code>delete</code> are timed over all
+ * <code>n</code> keys at once, in single-shot mode, from an empty and
+ * from a full tree, so their scores are per batch of <code>n</code>;
+ * <code>update</code> deletes a key and inserts it again, for the
+ * latency of a change to a tree of steady size.  The tree is rebuilt
+ * before every iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public abstract class TreeOperations {
+    @Param({"sorted", "reverse", "random", "zipfian"})
+    protected String dist;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    protected int n;
+
+    /** The keys, in the order they are inserted. */
+    protected Integer[] keys;
+
+    /** Tree holding <code>keys</code>. */
+    protected BinaryTree<Integer> tree;
+
+    /** Handles returned by <code>insert</code>; <code>handles[i]</code> holds <code>keys[i]</code>. */
+    protected Object[] handles;
+
+    /** Index in <code>keys</code> of the key the next operation uses. */
+    private int next;
+
+    /**
+     * Creates an empty tree of the class measured.
+     */
+    protected abstract BinaryTree<Integer> newTree();
+
+    @Setup(Level.Trial)
+    public void generate()
+    {
+        keys = BenchmarkKeys.keys(dist, n);
+    }
+
+    @Setup(Level.Iteration)
+    public void load()
+    {
+        tree = newTree();
+        handles = new Object[n];
+        for (int i = 0; i < n; i++)
+            handles[i] = tree.insert(keys[i]);
+        next = 0;
+    }
+
+    /**
+     * Returns the index of the key for the next operation, going
+     * through the keys in insertion order and around again.
+     */
+    protected int nextIndex()
+    {
+        int i = next;
+        next = i + 1 == n ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public BinaryTree<Integer> insert()
+    {
+        BinaryTree<Integer> empty = newTree();
+        for (Integer k : keys)
+            empty.insert(k);
+
+        return empty;
+    }
+
+    @Benchmark
+    public Object search()
+    {
+        return tree.search(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public Object update()
+    {
+        int i = nextIndex();
+        tree.delete(handles[i]);
+        handles[i] = tree.insert(keys[i]);
+
+        return handles[i];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20)
+    public BinaryTree<Integer> delete()
+    {
+        for (Object handle : handles)
+            tree.delete(handle);
+
+        return tree;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void inorderWalk(Blackhole blackhole)
+    {
+        tree.inorderWalk(consumer(blackhole));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void preorderWalk(Blackhole blackhole)
+    {
+        tree.preorderWalk(consumer(blackhole));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void postorderWalk(Blackhole blackhole)
+    {
+        tree.postorderWalk(consumer(blackhole));
+    }
+
+    /**
+     * Returns a <code>Visitor</code> that hands every node to a
+     * <code>Blackhole</code>, so that the walk cannot be optimized
+     * away.
+     */
+    private static BinaryTree.Visitor consumer(final Blackhole blackhole)
+    {
+        return new BinaryTree.Visitor() {
+            public Object visit(Object handle) {
+                blackhole.consume(handle);
+                return null;
+            }
+        };
+    }
+}
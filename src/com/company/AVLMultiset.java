@@ -0,0 +1,266 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * <code>AVLTree</code> that keeps one node per distinct key.  Where
+ * <code>BinarySearchTree</code> links an equal key into a node of its
+ * own, down the left of the keys it equals, an
+ * <code>AVLMultiset</code> adds one to the count of copies of the
+ * node already holding the key, and <code>delete</code> takes one
+ * away, unlinking the node only with its last copy.
+ *
+ * <p>
+ *
+ * The height therefore depends only on the number of distinct keys,
+ * and a hot key costs one descent and an update of the subtree sizes
+ * above it, without rotations.  <code>size</code>, <code>select</code>,
+ * <code>rank</code> and <code>rangeCount</code> count every copy, and
+ * iterators and streams return a key once per copy, just as they would
+ * over repeated nodes; walks visit each node once.
+ *
+ * <p>
+ *
+ * <code>union</code>, <code>intersection</code> and
+ * <code>difference</code>, which take another
+ * <code>AVLMultiset</code>, are those of multisets: a key's count in
+ * the result is the sum, the lesser, or the difference, if positive,
+ * of its counts in the two.
+ */
+public class AVLMultiset<E> extends AVLTree<E> {
+    /**
+     * Node of a multiset, which adds a count of copies to the fields
+     * of a <code>Node</code>.
+     */
+    protected class CountedNode extends Node
+    {
+        /** Number of equal keys the node stands for. */
+        protected int copies;
+
+        /**
+         * Initializes a node holding one copy of the data and makes
+         * other pointers nil.
+         *
+         * @param data Data to save in the node.
+         */
+        public CountedNode(Comparable<? extends E> data)
+        {
+            super(data);
+            copies = 1;
+        }
+
+        protected int copies()
+        {
+            return copies;
+        }
+    }
+
+    /**
+     * Creates an empty multiset.
+     */
+    public AVLMultiset()
+    {
+        this((Comparator<? super E>) null);
+    }
+
+    /**
+     * Creates an empty multiset whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public AVLMultiset(Comparator<? super E> comparator)
+    {
+        super(comparator);
+        CountedNode sentinel = new CountedNode(null);
+        sentinel.copies = 0;        // count() of a missing key
+        setNil(sentinel);
+        root = nil;
+    }
+
+    /**
+     * Creates a multiset holding the given keys, in their natural
+     * order.
+     *
+     * @param keys The keys to store.
+     */
+    public AVLMultiset(Comparable[] keys)
+    {
+        this(keys, null);
+    }
+
+    /**
+     * Creates a multiset holding the given keys.  As in
+     * <code>AVLTree(Comparable[])</code>, the tree is built directly
+     * in balanced shape, here from one node per run of equal keys
+     * after sorting a copy of the array.
+     *
+     * @param keys The keys to store.
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public AVLMultiset(Comparable[] keys, Comparator<? super E> comparator)
+    {
+        this(comparator);
+
+        if (keys.length == 0)
+            return;
+        chooseOrder(keys[0]);
+        keys = keys.clone();
+        Arrays.sort(keys, this.comparator);
+
+        Node[] nodes = (Node[]) new BinaryTree.Node[keys.length];
+        int n = 0;
+        for (Comparable k : keys) {
+            if (n > 0 && compare(nodes[n - 1].data, k) == 0)
+                ((CountedNode) nodes[n - 1]).copies++;
+            else
+                nodes[n++] = newNode(k);
+        }
+
+        root = buildBalanced(nodes, 0, n - 1, nil);
+        count = keys.length;
+    }
+
+    protected Node newNode(Comparable data)
+    {
+        return new CountedNode(data);
+    }
+
+    /**
+     * Adds one copy of a key, to the node already holding an equal
+     * key if there is one.
+     *
+     * @param data The key to add.
+     * @return The node holding the key.
+     */
+    public Object insert(Comparable data)
+    {
+        Node x = iterativeSearch(data);
+        if (x == nil)
+            return super.insert(data);
+
+        ((CountedNode) x).copies++;
+        count++;
+        for (Node y = x; y != nil; y = y.parent)
+            y.size++;
+
+        return x;
+    }
+
+    /**
+     * Removes one copy of a node's key, unlinking the node with its
+     * last copy.
+     *
+     * @param node The node holding the key.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>nil</code>.
+     */
+    public void delete(Object node)
+    {
+        Node x = (Node) node;
+        if (x == nil || x.copies() == 1) {
+            super.delete(node);
+            return;
+        }
+
+        ((CountedNode) x).copies--;
+        count--;
+        for (Node y = x; y != nil; y = y.parent)
+            y.size--;
+    }
+
+    /**
+     * Adds one copy of each key of a batch, one key at a time.
+     *
+     * @param keys The keys to add.
+     */
+    public void insertAll(Collection<? extends Comparable> keys)
+    {
+        for (Comparable k : keys)
+            insert(k);
+    }
+
+    /**
+     * Removes one copy of each key of a batch that is in the
+     * multiset, one key at a time.
+     *
+     * @param keys The keys to remove.
+     */
+    public void deleteAll(Collection<? extends Comparable> keys)
+    {
+        for (Comparable k : keys) {
+            Node x = iterativeSearch(k);
+            if (x != nil)
+                delete(x);
+        }
+    }
+
+    /**
+     * Adds the copies of another multiset's keys to this one, as
+     * <code>AVLTree.union</code> does, and leaves the other multiset
+     * empty.  The union of a multiset with itself doubles every count.
+     *
+     * @param other The multiset to take keys from, ordered as this one.
+     * @throws IllegalArgumentException if the other tree is not an
+     * <code>AVLMultiset</code> or orders its keys another way.
+     */
+    public void union(AVLTree<E> other)
+    {
+        if (other != this) {
+            super.union(other);
+            return;
+        }
+
+        doubleCopies(root);
+        count *= 2;
+    }
+
+    private void doubleCopies(Node x)
+    {
+        if (x == nil)
+            return;
+
+        doubleCopies(x.left);
+        doubleCopies(x.right);
+        ((CountedNode) x).copies *= 2;
+        x.size *= 2;
+    }
+
+    /**
+     * Sums the counts of a key in both multisets for a union, takes
+     * the lesser for an intersection, and subtracts the other's from
+     * this one's for a difference, dropping the key if none is left.
+     */
+    protected Node combineEqual(int op, Node a, Node b)
+    {
+        CountedNode x = (CountedNode) a;
+        int copies = b.copies();
+
+        if (op == UNION)
+            x.copies += copies;
+        else if (op == INTERSECTION)
+            x.copies = Math.min(x.copies, copies);
+        else if (x.copies > copies)
+            x.copies -= copies;
+        else
+            return nil;
+
+        return x;
+    }
+
+    /**
+     * Returns the number of copies of a key in the multiset.
+     *
+     * @param k The key.
+     */
+    public int count(Comparable k)
+    {
+        Node x = iterativeSearch(k);
+        return x.copies();
+    }
+}
@@ -1,14 +1,148 @@
 package com.company;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
 /**
  * Created by davidnagar on 2/1/15.
  */
 public class AVLTree<E> extends BinarySearchTree<E> {
-
     public AVLTree(){
         super();
     }
 
+    /**
+     * Creates an empty AVL tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public AVLTree(Comparator<? super E> comparator)
+    {
+        super(comparator);
+    }
+
+    /**
+     * Creates an AVL tree holding the given keys.  The tree is built
+     * directly in balanced shape in linear time, without rotations;
+     * keys that are not already in order are sorted first, into a
+     * copy of the array.
+     *
+     * @param keys The keys to store.
+     */
+    public AVLTree(Comparable[] keys)
+    {
+        this(keys, null);
+    }
+
+    /**
+     * Creates an AVL tree holding the given keys, ordered by a
+     * <code>Comparator</code>, as <code>AVLTree(Comparable[])</code>
+     * does.
+     *
+     * @param keys The keys to store.
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public AVLTree(Comparable[] keys, Comparator<? super E> comparator)
+    {
+        super(comparator);
+
+        if (keys.length > 0)
+            chooseOrder(keys[0]);
+        if (!isSorted(keys)) {
+            keys = keys.clone();
+            Arrays.sort(keys, this.comparator);
+        }
+
+        Node[] nodes = (Node[]) new BinaryTree.Node[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            nodes[i] = newNode(keys[i]);
+
+        root = buildBalanced(nodes, 0, nodes.length - 1, nil);
+        count = nodes.length;
+    }
+
+    /**
+     * Creates an AVL tree holding the keys produced by an
+     * <code>Iterable</code>, as <code>AVLTree(Comparable[])</code>
+     * does.
+     *
+     * @param keys The keys to store.
+     */
+    public AVLTree(Iterable<? extends Comparable> keys)
+    {
+        this(toArray(keys));
+    }
+
+    private static Comparable[] toArray(Iterable<? extends Comparable> keys)
+    {
+        ArrayList<Comparable> list = new ArrayList<Comparable>();
+        for (Comparable k : keys)
+            list.add(k);
+
+        return list.toArray(new Comparable[list.size()]);
+    }
+
+    private boolean isSorted(Comparable[] keys)
+    {
+        for (int i = 1; i < keys.length; i++)
+            if (compare(keys[i - 1], keys[i]) > 0)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Creates a node for a key, with other pointers nil.  Every node
+     * of the tree comes from here, so that subclasses whose nodes
+     * carry more fields, as <code>AVLMultiset</code> and
+     * <code>AVLTreeMap</code>'s do, can supply their own.
+     *
+     * @param data Data to save in the node.
+     */
+    protected Node newNode(Comparable data)
+    {
+        return new Node(data);
+    }
+
+    /**
+     * Links nodes, given in key order, into a perfectly balanced
+     * subtree with correct parents and heights.  The nodes' previous
+     * links are overwritten.
+     *
+     * @param nodes The nodes, sorted by key.
+     * @param lo Index of the first node of the subtree.
+     * @param hi Index of the last node of the subtree.
+     * @param parent Parent of the subtree's root.
+     * @return The root of the subtree, or <code>nil</code> if
+     * <code>lo &gt; hi</code>.
+     */
+    protected Node buildBalanced(Node[] nodes, int lo, int hi, Node parent)
+    {
+        if (lo > hi)
+            return nil;
+
+        int mid = (lo + hi) >>> 1;
+        Node x = nodes[mid];
+        x.parent = parent;
+        x.left = buildBalanced(nodes, lo, mid - 1, x);
+        x.right = buildBalanced(nodes, mid + 1, hi, x);
+        x.height = Math.max(x.left.height, x.right.height) + 1;
+        x.size = x.left.size + x.right.size + x.copies();
+
+        return x;
+    }
+
         /**
          * Inserts data into the tree, creating a new node for this data.
          *
@@ -19,12 +153,631 @@ public class AVLTree<E> extends BinarySearchTree<E> {
          */
         public Object insert(Comparable data)
         {
-            Node z = new Node(data);
+            Node z = newNode(data);
             avlInsert(z);
+            count++;
 
             return z;
         }
 
+    /**
+     * Inserts a batch of keys.  A batch that is large next to the
+     * tree is sorted and merged with the tree's nodes, which are then
+     * relinked into a balanced tree in one linear pass, instead of
+     * rebalancing the path to the root once per key.  Smaller
+     * batches are inserted one key at a time.  Either way the nodes
+     * already in the tree stay valid handles.
+     *
+     * @param keys The keys to insert.
+     */
+    @SuppressWarnings("unchecked")
+    public void insertAll(Collection<? extends Comparable> keys)
+    {
+        Comparable[] batch = keys.toArray(new Comparable[keys.size()]);
+        if (batch.length == 0)
+            return;
+        chooseOrder(batch[0]);
+        Arrays.sort(batch, comparator);
+
+        if (!isBatchLarge(batch.length)) {
+            for (Comparable k : batch)
+                insert(k);
+            return;
+        }
+
+        ArrayList<Node> old = convertToArray(root);
+        Node[] merged = (Node[]) new BinaryTree.Node[old.size() + batch.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            // Equal keys go before the old node, as treeInsert would put them.
+            if (j < batch.length && (i == old.size() || compare(batch[j], old.get(i).data) <= 0))
+                merged[k] = newNode(batch[j++]);
+            else
+                merged[k] = old.get(i++);
+        }
+
+        root = buildBalanced(merged, 0, merged.length - 1, nil);
+        count = merged.length;
+    }
+
+    /**
+     * Deletes one node for each key of a batch that is in the tree.
+     * Like <code>insertAll</code>, a large batch is merged against
+     * the tree's nodes and the survivors are relinked into a
+     * balanced tree in one linear pass; a small one is deleted one
+     * key at a time.
+     *
+     * @param keys The keys to delete.
+     */
+    @SuppressWarnings("unchecked")
+    public void deleteAll(Collection<? extends Comparable> keys)
+    {
+        Comparable[] batch = keys.toArray(new Comparable[keys.size()]);
+        Arrays.sort(batch, comparator);
+
+        if (!isBatchLarge(batch.length)) {
+            for (Comparable k : batch) {
+                Node x = search(k);
+                if (x != nil)
+                    delete(x);
+            }
+            return;
+        }
+
+        ArrayList<Node> old = convertToArray(root);
+        Node[] kept = (Node[]) new BinaryTree.Node[old.size()];
+        int j = 0;
+        int k = 0;
+        for (Node x : old) {
+            while (j < batch.length && compare(batch[j], x.data) < 0)
+                j++;
+            if (j < batch.length && compare(batch[j], x.data) == 0)
+                j++;            // x is deleted
+            else
+                kept[k++] = x;
+        }
+
+        root = buildBalanced(kept, 0, k - 1, nil);
+        count = k;
+    }
+
+    /**
+     * Returns <code>true</code> if a batch of the given size costs
+     * less to merge in one linear pass than to apply key by key,
+     * taking each single update as a walk of the tree's height.
+     */
+    private boolean isBatchLarge(int m)
+    {
+        return (long) m * root.height >= count;
+    }
+
+    /** Subtrees with fewer keys than this are handled by one thread. */
+    private static final int GRAIN = 1 << 13;
+
+    /** Operations of a <code>SetTask</code>, passed to <code>combineEqual</code>. */
+    protected static final int UNION = 0, INTERSECTION = 1, DIFFERENCE = 2;
+
+    /**
+     * Creates an AVL tree holding the given keys, as
+     * <code>AVLTree(Comparable[], Comparator)</code> does, but with
+     * the threads of the common <code>ForkJoinPool</code>: a copy of
+     * the keys is sorted by <code>Arrays.parallelSort</code>, and the
+     * two halves of each large subtree are built by separate tasks.
+     *
+     * @param keys The keys to store.
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     * @return The new tree.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> AVLTree<E> parallelBuild(Comparable[] keys, Comparator<? super E> comparator)
+    {
+        AVLTree<E> tree = new AVLTree<E>(comparator);
+        if (keys.length == 0)
+            return tree;
+
+        tree.chooseOrder(keys[0]);
+        keys = keys.clone();
+        Arrays.parallelSort(keys, tree.comparator);
+        tree.root = ForkJoinPool.commonPool().invoke(tree.new BuildTask(keys, 0, keys.length - 1, tree.nil));
+        tree.count = keys.length;
+
+        return tree;
+    }
+
+    /**
+     * Builds a balanced subtree of new nodes for a range of sorted
+     * keys, forking a task for the left half while the range is large.
+     */
+    @SuppressWarnings("unchecked")
+    private Node build(Comparable[] keys, int lo, int hi, Node parent)
+    {
+        if (lo > hi)
+            return nil;
+
+        int mid = (lo + hi) >>> 1;
+        Node x = newNode(keys[mid]);
+        x.parent = parent;
+        if (hi - lo >= GRAIN) {
+            BuildTask left = new BuildTask(keys, lo, mid - 1, x);
+            left.fork();
+            x.right = build(keys, mid + 1, hi, x);
+            x.left = left.join();
+        }
+        else {
+            x.left = build(keys, lo, mid - 1, x);
+            x.right = build(keys, mid + 1, hi, x);
+        }
+
+        return update(x);
+    }
+
+    private class BuildTask extends RecursiveTask<Node>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Comparable[] keys;
+        private final int lo, hi;
+        private final Node parent;
+
+        BuildTask(Comparable[] keys, int lo, int hi, Node parent)
+        {
+            this.keys = keys;
+            this.lo = lo;
+            this.hi = hi;
+            this.parent = parent;
+        }
+
+        protected Node compute()
+        {
+            return build(keys, lo, hi, parent);
+        }
+    }
+
+    /**
+     * Combines the keys of the tree, in order, with the threads of the
+     * common <code>ForkJoinPool</code>.  The work is split at
+     * subtrees: the task for a large subtree forks one for its left
+     * subtree, does the right one itself and combines the two results
+     * around its root's key, and a subtree of fewer than a few
+     * thousand keys is walked by one thread.  The subtree sizes give
+     * every task its share without counting.  The tree must not be
+     * changed meanwhile.
+     *
+     * @param identity The result for no keys, which
+     * <code>combiner</code> leaves any other result unchanged with.
+     * @param mapper Maps a key to a result, once per copy of the key.
+     * @param combiner Combines two results, in key order; it must be
+     * associative.
+     * @return The combined result.
+     */
+    public <R> R parallelReduce(R identity, Function<? super E, ? extends R> mapper, BinaryOperator<R> combiner)
+    {
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<R>(root, identity, mapper, combiner));
+    }
+
+    private class ReduceTask<R> extends RecursiveTask<R>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Node top;
+        private final R identity;
+        private final Function<? super E, ? extends R> mapper;
+        private final BinaryOperator<R> combiner;
+
+        /** Result of the keys walked so far by a task for a small subtree. */
+        private R result;
+
+        ReduceTask(Node top, R identity, Function<? super E, ? extends R> mapper, BinaryOperator<R> combiner)
+        {
+            this.top = top;
+            this.identity = identity;
+            this.mapper = mapper;
+            this.combiner = combiner;
+        }
+
+        protected R compute()
+        {
+            result = identity;
+            if (top.size < GRAIN) {
+                walk(top, INORDER, new Visitor() {
+                    public Object visit(Object handle) {
+                        result = combiner.apply(result, reduceKey((Node) handle));
+                        return null;
+                    }
+                });
+                return result;
+            }
+
+            ReduceTask<R> left = new ReduceTask<R>(top.left, identity, mapper, combiner);
+            left.fork();
+            R right = new ReduceTask<R>(top.right, identity, mapper, combiner).compute();
+
+            return combiner.apply(combiner.apply(left.join(), reduceKey(top)), right);
+        }
+
+        /** Returns the result of a node's key, combined once per copy. */
+        @SuppressWarnings("unchecked")
+        private R reduceKey(Node x)
+        {
+            R key = mapper.apply((E) x.data);
+            for (int i = 1; i < x.copies(); i++)
+                key = combiner.apply(key, mapper.apply((E) x.data));
+
+            return key;
+        }
+    }
+
+    /**
+     * Makes this tree the union of itself and another tree, and
+     * leaves the other tree empty.  Both trees are treated as sets:
+     * each is expected to hold no repeated keys, as the tree of an
+     * <code>AVLTreeSet</code> does, and for a key in both, this
+     * tree's node is kept.  <code>AVLMultiset</code> combines the
+     * counts of such keys instead; see <code>combineEqual</code>.
+     *
+     * <p>
+     *
+     * The nodes of both trees are reused, without copying keys, by
+     * the divide-and-conquer of Blelloch, Ferizovic and Sun, "Just
+     * Join for Parallel Ordered Sets": the root of the other tree
+     * splits this tree into the keys less than and greater than its
+     * key, the two sides are combined recursively, in parallel while
+     * they are large, and the results are joined again at that key.
+     * For trees of <i>m</i> and <i>n</i> &ge; <i>m</i> keys this does
+     * O(<i>m</i> log(<i>n</i>/<i>m</i> + 1)) work in O(log<sup>2</sup>
+     * <i>n</i>) steps on the threads of the common
+     * <code>ForkJoinPool</code>, plus a parallel pass over the other
+     * tree to adopt its nodes.  Handles to nodes of this tree that
+     * stay in it remain valid.
+     *
+     * <p>
+     *
+     * The nodes are moved, not copied, so the other tree must be of
+     * the same class as this one, with nodes of the same kind, and
+     * order its keys the same way: by an equal comparator, or both by
+     * the natural order of keys of the same class.
+     *
+     * @param other The tree to take keys from, ordered as this one.
+     * @throws IllegalArgumentException if the other tree is of another
+     * class or orders its keys another way.
+     */
+    public void union(AVLTree<E> other)
+    {
+        combine(UNION, other);
+    }
+
+    /**
+     * Makes this tree the intersection of itself and another tree,
+     * as <code>union</code> does, keeping this tree's nodes of the
+     * keys in both, and leaves the other tree empty.
+     *
+     * @param other The tree whose keys are kept, ordered as this one.
+     * @throws IllegalArgumentException as <code>union</code> does.
+     */
+    public void intersection(AVLTree<E> other)
+    {
+        combine(INTERSECTION, other);
+    }
+
+    /**
+     * Removes from this tree the keys of another tree, as
+     * <code>union</code> does, and leaves the other tree empty.
+     *
+     * @param other The tree whose keys are removed, ordered as this one.
+     * @throws IllegalArgumentException as <code>union</code> does.
+     */
+    public void difference(AVLTree<E> other)
+    {
+        combine(DIFFERENCE, other);
+    }
+
+    private void combine(int op, AVLTree<E> other)
+    {
+        if (other == this) {
+            if (op == DIFFERENCE) {
+                root = nil;
+                count = 0;
+            }
+            return;
+        }
+        if (other.getClass() != getClass())
+            throw new IllegalArgumentException("cannot combine " + getClass().getSimpleName()
+                                               + " with " + other.getClass().getSimpleName());
+        if (comparator == null ? other.comparator != null : !comparator.equals(other.comparator))
+            throw new IllegalArgumentException("trees ordered by different comparators");
+        if (order != UNKNOWN && other.order != UNKNOWN && order != other.order)
+            throw new IllegalArgumentException("trees hold keys of different classes");
+
+        Node b = other.root;
+        other.root = other.nil;
+        other.count = 0;
+        if (b == other.nil)
+            b = nil;
+        else {
+            chooseOrder(b.data);
+            ForkJoinPool.commonPool().invoke(new AdoptTask(b, other.nil));
+        }
+
+        root = ForkJoinPool.commonPool().invoke(new SetTask(op, root, b));
+        root.parent = nil;
+        count = root.size;
+    }
+
+    /**
+     * Points the links of a subtree taken from another tree to this
+     * tree's sentinel instead of that tree's, in parallel while the
+     * subtree is large.
+     */
+    private void adopt(Node x, Node foreign)
+    {
+        if (x.size >= GRAIN) {
+            AdoptTask left = new AdoptTask(x.left, foreign);
+            left.fork();
+            adopt(x.right, foreign);
+            left.join();
+        }
+        else {
+            if (x.left != foreign)
+                adopt(x.left, foreign);
+            if (x.right != foreign)
+                adopt(x.right, foreign);
+        }
+
+        if (x.left == foreign)
+            x.left = nil;
+        if (x.right == foreign)
+            x.right = nil;
+    }
+
+    private class AdoptTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Node top, foreign;
+
+        AdoptTask(Node top, Node foreign)
+        {
+            this.top = top;
+            this.foreign = foreign;
+        }
+
+        protected void compute()
+        {
+            if (top != foreign)
+                adopt(top, foreign);
+        }
+    }
+
+    /**
+     * Returns the root of the subtree holding the union, intersection
+     * or difference of the subtrees rooted at <code>a</code>, from
+     * this tree, and <code>b</code>, from the other one.  Parent links
+     * of the returned root are left for the caller to set.
+     */
+    private Node setOperation(int op, Node a, Node b)
+    {
+        if (a == nil)
+            return op == UNION ? b : nil;
+        if (b == nil)
+            return op == INTERSECTION ? nil : a;
+
+        boolean large = a.size + b.size >= GRAIN;
+        Node bLeft = b.left;
+        Node bRight = b.right;
+        Split s = split(a, b.data);
+        Node l, r;
+        if (large) {
+            SetTask left = new SetTask(op, s.less, bLeft);
+            left.fork();
+            r = setOperation(op, s.greater, bRight);
+            l = left.join();
+        }
+        else {
+            l = setOperation(op, s.less, bLeft);
+            r = setOperation(op, s.greater, bRight);
+        }
+
+        Node m = s.equal != nil ? combineEqual(op, s.equal, b) : op == UNION ? b : nil;
+        return m != nil ? join(l, m, r) : join2(l, r);
+    }
+
+    /**
+     * Returns the node to keep for a key held both by a node of this
+     * tree and by a node of the other tree of a set operation, or
+     * <code>nil</code> to drop the key.  The trees are sets here, so
+     * union and intersection keep this tree's node and difference
+     * drops the key.  Called from several threads at once, for
+     * distinct keys.
+     *
+     * @param op <code>UNION</code>, <code>INTERSECTION</code> or
+     * <code>DIFFERENCE</code>.
+     * @param a The node of this tree.
+     * @param b The node of the other tree, which is dropped unless it
+     * is returned.
+     */
+    protected Node combineEqual(int op, Node a, Node b)
+    {
+        return op == DIFFERENCE ? nil : a;
+    }
+
+    private class SetTask extends RecursiveTask<Node>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int op;
+        private final Node a, b;
+
+        SetTask(int op, Node a, Node b)
+        {
+            this.op = op;
+            this.a = a;
+            this.b = b;
+        }
+
+        protected Node compute()
+        {
+            return setOperation(op, a, b);
+        }
+    }
+
+    /** Result of <code>split</code>: subtrees of the keys less than and greater than a key, and its node. */
+    private class Split
+    {
+        Node less, equal, greater;
+    }
+
+    /**
+     * Splits a subtree at a key, in O(log n) time, into a subtree of
+     * the keys less than it, the node holding it or <code>nil</code>,
+     * and a subtree of the keys greater than it.  The subtree's nodes
+     * are relinked; none is copied.
+     */
+    private Split split(Node t, Comparable k)
+    {
+        if (t == nil) {
+            Split s = new Split();
+            s.less = s.equal = s.greater = nil;
+            return s;
+        }
+
+        Node l = t.left;
+        Node r = t.right;
+        int c = compare(k, t.data);
+        if (c == 0) {
+            Split s = new Split();
+            s.less = l;
+            s.equal = t;
+            s.greater = r;
+            return s;
+        }
+        if (c < 0) {
+            Split s = split(l, k);
+            s.greater = join(s.greater, t, r);
+            return s;
+        }
+
+        Split s = split(r, k);
+        s.less = join(l, t, s.less);
+        return s;
+    }
+
+    /**
+     * Joins two subtrees, all of whose keys are in order, into one,
+     * by splitting off the greatest node of the left one to join
+     * them at.
+     */
+    private Node join2(Node l, Node r)
+    {
+        if (l == nil)
+            return r;
+
+        Split s = splitLast(l);
+        return join(s.less, s.equal, r);
+    }
+
+    /** Splits a nonempty subtree into its greatest node, as <code>equal</code>, and the rest, as <code>less</code>. */
+    private Split splitLast(Node t)
+    {
+        if (t.right == nil) {
+            Split s = new Split();
+            s.less = t.left;
+            s.equal = t;
+            return s;
+        }
+
+        Node l = t.left;
+        Split s = splitLast(t.right);
+        s.less = join(l, t, s.less);
+        return s;
+    }
+
+    /**
+     * Joins two AVL subtrees and a node whose key lies between theirs
+     * into one AVL subtree, and returns its root.  The node is linked
+     * in down the near side of the taller subtree, where the heights
+     * meet, and rotations on the way back restore the balance, in
+     * time proportional to the difference of the heights.
+     */
+    private Node join(Node l, Node k, Node r)
+    {
+        if (l.height > r.height + 1)
+            return joinRight(l, k, r);
+        if (r.height > l.height + 1)
+            return joinLeft(l, k, r);
+
+        return link(l, k, r);
+    }
+
+    private Node joinRight(Node l, Node k, Node r)
+    {
+        Node c = l.right;
+        if (c.height <= r.height + 1) {
+            Node t = link(c, k, r);
+            if (t.height <= l.left.height + 1)
+                return link(l.left, l, t);
+            return rotateLeft(link(l.left, l, rotateRight(t)));
+        }
+
+        Node t = joinRight(c, k, r);
+        link(l.left, l, t);
+        return t.height <= l.left.height + 1 ? l : rotateLeft(l);
+    }
+
+    private Node joinLeft(Node l, Node k, Node r)
+    {
+        Node c = r.left;
+        if (c.height <= l.height + 1) {
+            Node t = link(l, k, c);
+            if (t.height <= r.right.height + 1)
+                return link(t, r, r.right);
+            return rotateRight(link(rotateLeft(t), r, r.right));
+        }
+
+        Node t = joinLeft(l, k, c);
+        link(t, r, r.right);
+        return t.height <= r.right.height + 1 ? r : rotateRight(r);
+    }
+
+    /** Makes <code>l</code> and <code>r</code> the children of <code>k</code>, and returns <code>k</code>. */
+    private Node link(Node l, Node k, Node r)
+    {
+        k.left = l;
+        k.right = r;
+        if (l != nil)
+            l.parent = k;
+        if (r != nil)
+            r.parent = k;
+
+        return update(k);
+    }
+
+    /** Rotates a subtree whose root has a right child, and returns the new root. */
+    private Node rotateLeft(Node x)
+    {
+        Node y = x.right;
+        link(x.left, x, y.left);
+        return link(x, y, y.right);
+    }
+
+    /** Rotates a subtree whose root has a left child, and returns the new root. */
+    private Node rotateRight(Node x)
+    {
+        Node y = x.left;
+        link(y.right, x, x.right);
+        return link(y.left, y, x);
+    }
+
+    /** Sets a node's height and size from its children's, and returns it. */
+    private Node update(Node x)
+    {
+        x.height = Math.max(x.left.height, x.right.height) + 1;
+        x.size = x.left.size + x.right.size + x.copies();
+
+        return x;
+    }
+
         /**
          * Inserts a node into the tree.
          *
@@ -41,21 +794,24 @@ public class AVLTree<E> extends BinarySearchTree<E> {
 
         while (current != nil) {
             current.height = Math.max(current.left.height, current.right.height) + 1;
+            current.size = current.left.size + current.right.size + current.copies();
             int currentBalance = current.getBalance();
 
+            // A child of balance 0 only arises after a delete, and
+            // takes a single rotation, as one leaning outward does.
             if (currentBalance < -1) {
-                if (current.right.getBalance() == -1) {
+                if (current.right.getBalance() <= 0) {
                     leftRotate(current);
                 }
-                else if (current.right.getBalance() == 1) {
+                else {
                     rightRotate(current.right);
                     leftRotate(current);
                 }
             }else if (currentBalance > 1) {
-                if (current.left.getBalance() == 1) {
+                if (current.left.getBalance() >= 0) {
                     rightRotate(current);
                 }
-                else if (current.left.getBalance() == -1) {
+                else {
                     leftRotate(current.left);
                     rightRotate(current);
                 }
@@ -64,54 +820,174 @@ public class AVLTree<E> extends BinarySearchTree<E> {
         }
     }
 
-    private void rightRotate(Node x) {
-        Node y = x.left;
-        x.left = y.right;
-        if (y.right != nil) {
-            y.right.parent = x;
-        }
-        y.parent = x.parent;
-        if (x.parent == nil) {
-            root = y;
-        }
-        else if (x == x.parent.right) {
-            x.parent.right = y;
-        }
-        else {
-            x.parent.left = y;
-        }
-        y.right = x;
-        x.parent = y;
-        y.height = Math.max( y.left.height(), y.right.height()) + 1;
-        x.height = Math.max(x.right.height(), y.height ) + 1;
+    /**
+     * Rotates as <code>BinarySearchTree</code> does, then recomputes
+     * the height and size of the node, now a child, and of the child
+     * that took its place, in that order.
+     */
+    protected void leftRotate(Node x)
+    {
+        super.leftRotate(x);
+        update(x);
+        update(x.parent);
     }
 
+    /**
+     * Rotates as <code>BinarySearchTree</code> does, then recomputes
+     * the height and size of the two nodes, as
+     * <code>leftRotate</code> does.
+     */
+    protected void rightRotate(Node x)
+    {
+        super.rightRotate(x);
+        update(x);
+        update(x.parent);
+    }
 
-    private void leftRotate(Node x) {
-        Node y = x.right;
-        x.right = y.left;
-        if (y.left != nil) {
-            y.left.parent = x;
+    /**
+     * Unlinks a node and rebalances, in one pass up to the root, from
+     * the lowest node whose subtree changed.  That is the node's
+     * parent if it has at most one child.  Otherwise its successor
+     * takes its place, and it is the successor's old parent, or the
+     * successor itself if that was the node's right child.
+     * Rebalancing from the unlinked node would miss those changes.
+     *
+     * @param z The node to be unlinked, which is not the sentinel.
+     */
+    protected void treeDelete(Node z){
+        Node lowest = z.parent;
+        if (z.left != nil && z.right != nil) {
+            Node y = successor(z);
+            lowest = y.parent == z ? y : y.parent;
         }
-        y.parent = x.parent;
-        if (x.parent == nil) {
-            root = y;
+
+        super.treeDelete(z);
+        rebalance(lowest);
+    }
+
+    /**
+     * Returns the node with the <code>i</code>th smallest key, as
+     * OS-SELECT in <i>Introduction to Algorithms</i> does, using the
+     * subtree sizes in O(log n) time.
+     *
+     * @param i The rank asked for, from 1 to <code>size()</code>;
+     * the copies of a key in an <code>AVLMultiset</code> share its
+     * node.
+     * @return The node, or the sentinel <code>nil</code> if
+     * <code>i</code> is out of range.
+     */
+    public Node select(int i)
+    {
+        if (i < 1 || i > root.size)
+            return nil;
+
+        Node x = root;
+        while (i <= x.left.size || i > x.left.size + x.copies()) {
+            if (i <= x.left.size)
+                x = x.left;
+            else {
+                i -= x.left.size + x.copies();
+                x = x.right;
+            }
         }
-        else if (x == x.parent.left) {
-            x.parent.left = y;
+
+        return x;
+    }
+
+    /**
+     * Returns the rank of a key: the number of keys in the tree less
+     * than or equal to it, in O(log n) time.  For a key in the tree
+     * that is not repeated, <code>select(rank(k))</code> is its node.
+     *
+     * @param k The key, which need not be in the tree.
+     */
+    public int rank(Comparable k)
+    {
+        return countBelow(k, true);
+    }
+
+    /**
+     * Returns the number of keys between two bounds in O(log n) time,
+     * as the difference of two ranks.
+     */
+    public int rangeCount(Comparable lo, boolean loInclusive, Comparable hi, boolean hiInclusive)
+    {
+        int n = (hi == null ? count : countBelow(hi, hiInclusive))
+            - (lo == null ? 0 : countBelow(lo, !loInclusive));
+
+        return Math.max(n, 0);
+    }
+
+    /**
+     * Returns the number of keys less than <code>k</code>, or less
+     * than or equal to it if <code>inclusive</code>.
+     */
+    private int countBelow(Comparable k, boolean inclusive)
+    {
+        Node x = root;
+        int n = 0;
+
+        while (x != nil) {
+            int c = compare(x.data, k);
+            if (c < 0 || (inclusive && c == 0)) {
+                n += x.left.size + x.copies();
+                x = x.right;
+            }
+            else
+                x = x.left;
         }
-        else {
-            x.parent.right = y;
+
+        return n;
+    }
+
+    /**
+     * Checks every invariant of the tree in O(n) time: parent links,
+     * key order, heights, subtree sizes, the AVL balance condition,
+     * the node count, and a sentinel whose height, size and links
+     * are untouched.
+     *
+     * @throws IllegalStateException naming the first invariant found
+     * broken.
+     */
+    public void verify()
+    {
+        if (nil.height != 0 || nil.size != 0
+            || nil.parent != nil || nil.left != nil || nil.right != nil)
+            throw new IllegalStateException("sentinel modified");
+        if (root != nil && root.parent != nil)
+            throw new IllegalStateException("root has a parent");
+        if (verify(root) != count)
+            throw new IllegalStateException("count " + count + " but " + root.size + " keys");
+
+        Node previous = nil;
+        for (Node x = minimum(); x != nil; x = successor(x)) {
+            if (previous != nil && compare(previous.data, x.data) > 0)
+                throw new IllegalStateException("keys out of order at " + x.data);
+            previous = x;
         }
-        y.left = x;
-        x.parent = y;
-        x.height = Math.max( x.left.height(), x.right.height()) + 1;
-        y.height = Math.max( y.left.height(), x.height ) + 1;
     }
 
-    public void delete(Object node){
-        super.delete(node);
-        rebalance((Node)node);
+    /**
+     * Checks the links, height, size and balance of each node of a
+     * subtree, and returns its number of keys.
+     */
+    private int verify(Node x)
+    {
+        if (x == nil)
+            return 0;
+
+        if (x.left != nil && x.left.parent != x || x.right != nil && x.right.parent != x)
+            throw new IllegalStateException("bad parent link below " + x.data);
+
+        int size = verify(x.left) + verify(x.right) + x.copies();
+        if (x.height != Math.max(x.left.height, x.right.height) + 1)
+            throw new IllegalStateException("wrong height at " + x.data);
+        if (x.size != size)
+            throw new IllegalStateException("wrong size at " + x.data);
+        if (Math.abs(x.getBalance()) > 1)
+            throw new IllegalStateException("unbalanced at " + x.data);
+
+        return size;
     }
 
     protected void setNil(Node node)
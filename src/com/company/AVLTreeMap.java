@@ -0,0 +1,535 @@
+package com.company;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <code>NavigableMap</code> backed by an <code>AVLTree</code> whose
+ * nodes hold each value next to its key, so that the tree can stand
+ * in for a <code>java.util.TreeMap</code> without wrapping keys and
+ * values in pair objects.
+ *
+ * <p>
+ *
+ * Updating the value of a key already in the map changes its node in
+ * place: <code>put</code>, <code>merge</code> and
+ * <code>computeIfAbsent</code> cost a single descent on a hit, and
+ * only a missing key costs an insert and its rebalancing.  As with
+ * <code>AVLTreeSet</code>, submaps and the descending map are views
+ * of the same tree, given by optional bounds and a direction.  Keys
+ * must be non-null and mutually <code>Comparable</code>; values may
+ * be <code>null</code>.
+ */
+public class AVLTreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final MapTree<K> tree;
+
+    /** Bounds and direction of this view. */
+    private final TreeBounds<K> bounds;
+
+    /**
+     * <code>AVLTree</code> whose nodes carry a value next to their key.
+     * Its <code>nil</code> is a <code>ValueNode</code> too, as
+     * <code>RedBlackTree</code>'s is an <code>RBNode</code>.
+     */
+    private static class MapTree<K> extends AVLTree<K> {
+        /**
+         * Node of a map, which adds the value mapped to
+         * <code>data</code> to the fields of a <code>Node</code>.
+         */
+        class ValueNode extends Node
+        {
+            /** The value mapped to <code>data</code>. */
+            Object value;
+
+            ValueNode(Comparable<? extends K> data)
+            {
+                super(data);
+            }
+        }
+
+        MapTree(Comparator<? super K> comparator)
+        {
+            super(comparator);
+            setNil(new ValueNode(null));
+            root = nil;
+        }
+
+        protected Node newNode(Comparable data)
+        {
+            return new ValueNode(data);
+        }
+    }
+
+    /**
+     * Creates an empty map.
+     */
+    public AVLTreeMap()
+    {
+        this(new TreeBounds<K>(new MapTree<K>(null)));
+    }
+
+    /**
+     * Creates an empty map whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public AVLTreeMap(Comparator<? super K> comparator)
+    {
+        this(new TreeBounds<K>(new MapTree<K>(comparator)));
+    }
+
+    private AVLTreeMap(TreeBounds<K> bounds)
+    {
+        this.tree = (MapTree<K>) bounds.tree;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns the node of a key in this view, or <code>nil</code>.
+     */
+    private BinaryTree<K>.Node node(Object key)
+    {
+        Comparable k = (Comparable) key;
+        return bounds.inRange(k) ? tree.iterativeSearch(k) : tree.nil;
+    }
+
+    /**
+     * Inserts a key that is not in the tree with its value.
+     *
+     * @throws IllegalArgumentException if the key is outside the
+     * bounds of this view.
+     */
+    @SuppressWarnings("unchecked")
+    private void insert(Comparable k, Object value)
+    {
+        if (!bounds.inRange(k))
+            throw new IllegalArgumentException("key out of range");
+
+        storeValue((BinaryTree<K>.Node) tree.insert(k), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(BinaryTree<K>.Node x)
+    {
+        return (V) ((MapTree<K>.ValueNode) x).value;
+    }
+
+    private void storeValue(BinaryTree<K>.Node x, Object value)
+    {
+        ((MapTree<K>.ValueNode) x).value = value;
+    }
+
+    public int size()
+    {
+        return bounds.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return tree.isNil(bounds.edge(false));
+    }
+
+    public boolean containsKey(Object key)
+    {
+        return !tree.isNil(node(key));
+    }
+
+    public V get(Object key)
+    {
+        BinaryTree<K>.Node x = node(key);
+        return tree.isNil(x) ? null : value(x);
+    }
+
+    /**
+     * Maps a key to a value, replacing the value in place if the key
+     * is already in the map.
+     *
+     * @throws IllegalArgumentException if the key is outside the
+     * bounds of this view.
+     */
+    public V put(K key, V value)
+    {
+        BinaryTree<K>.Node x = node(key);
+        if (tree.isNil(x)) {
+            insert((Comparable) key, value);
+            return null;
+        }
+
+        V old = value(x);
+        storeValue(x, value);
+        return old;
+    }
+
+    public V remove(Object key)
+    {
+        BinaryTree<K>.Node x = node(key);
+        if (tree.isNil(x))
+            return null;
+
+        V old = value(x);
+        tree.delete(x);
+        return old;
+    }
+
+    /**
+     * Returns the value of a key, first mapping it to a computed value
+     * if it has none, with one descent when the key is present.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction)
+    {
+        BinaryTree<K>.Node x = node(key);
+        V v = value(x);     // null at the sentinel
+        if (v != null)
+            return v;
+
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            if (tree.isNil(x))
+                insert((Comparable) key, value);
+            else
+                storeValue(x, value);
+        }
+        return value;
+    }
+
+    /**
+     * Combines a value with the value of a key, as
+     * <code>Map.merge</code> does, updating the key's node in place
+     * when it is present.
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction)
+    {
+        if (value == null)
+            throw new NullPointerException();
+
+        BinaryTree<K>.Node x = node(key);
+        if (tree.isNil(x)) {
+            insert((Comparable) key, value);
+            return value;
+        }
+
+        V old = value(x);
+        V merged = old == null ? value : remappingFunction.apply(old, value);
+        if (merged == null)
+            tree.delete(x);
+        else
+            storeValue(x, merged);
+        return merged;
+    }
+
+    /**
+     * Live view of a node as a map entry.
+     */
+    private class NodeEntry implements Map.Entry<K, V>
+    {
+        private final BinaryTree<K>.Node x;
+
+        NodeEntry(BinaryTree<K>.Node x)
+        {
+            this.x = x;
+        }
+
+        @SuppressWarnings("unchecked")
+        public K getKey()
+        {
+            return (K) x.data;
+        }
+
+        public V getValue()
+        {
+            return value(x);
+        }
+
+        public V setValue(V value)
+        {
+            V old = value(x);
+            storeValue(x, value);
+            return old;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            V v = value(x);
+            return x.data.equals(e.getKey()) && (v == null ? e.getValue() == null : v.equals(e.getValue()));
+        }
+
+        public int hashCode()
+        {
+            V v = value(x);
+            return x.data.hashCode() ^ (v == null ? 0 : v.hashCode());
+        }
+
+        public String toString()
+        {
+            return x.data + "=" + value(x);
+        }
+    }
+
+    /**
+     * Iterator over the nodes of this view, in its order, following
+     * <code>successor</code> or <code>predecessor</code>.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>>
+    {
+        private BinaryTree<K>.Node next;
+
+        private final BinaryTree<K>.Node fence;
+
+        private BinaryTree<K>.Node last;
+
+        EntryIterator()
+        {
+            BinaryTree<K>.Node first = tree.lowerBound(bounds.lo, bounds.loInclusive);
+            BinaryTree<K>.Node end = tree.upperBound(bounds.hi, bounds.hiInclusive);
+            if (tree.isNil(first) || tree.isNil(end) || tree.compare(first.data, end.data) > 0) {
+                next = tree.nil;
+                fence = tree.nil;
+            }
+            else if (bounds.descending) {
+                next = end;
+                fence = tree.predecessor(first);
+            }
+            else {
+                next = first;
+                fence = tree.successor(end);
+            }
+            last = tree.nil;
+        }
+
+        public boolean hasNext()
+        {
+            return next != fence;
+        }
+
+        public Map.Entry<K, V> next()
+        {
+            if (next == fence)
+                throw new NoSuchElementException();
+
+            last = next;
+            next = bounds.descending ? tree.predecessor(last) : tree.successor(last);
+            return new NodeEntry(last);
+        }
+
+        public void remove()
+        {
+            if (tree.isNil(last))
+                throw new IllegalStateException();
+
+            tree.delete(last);
+            last = tree.nil;
+        }
+    }
+
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            public int size() {
+                return AVLTreeMap.this.size();
+            }
+
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry))
+                    return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                BinaryTree<K>.Node x = node(e.getKey());
+                return !tree.isNil(x) && new NodeEntry(x).equals(e);
+            }
+
+            public boolean remove(Object o) {
+                if (!contains(o))
+                    return false;
+                tree.delete(node(((Map.Entry<?, ?>) o).getKey()));
+                return true;
+            }
+        };
+    }
+
+    /** Returns an immutable snapshot of a node's entry, or <code>null</code>. */
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> entry(BinaryTree<K>.Node x)
+    {
+        return tree.isNil(x) ? null : new AbstractMap.SimpleImmutableEntry<K, V>((K) x.data, value(x));
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(BinaryTree<K>.Node x)
+    {
+        return tree.isNil(x) ? null : (K) x.data;
+    }
+
+    private K keyOrThrow(BinaryTree<K>.Node x)
+    {
+        if (tree.isNil(x))
+            throw new NoSuchElementException();
+        return key(x);
+    }
+
+    public Map.Entry<K, V> lowerEntry(K key)
+    {
+        return entry(bounds.lower((Comparable) key, false));
+    }
+
+    public K lowerKey(K key)
+    {
+        return key(bounds.lower((Comparable) key, false));
+    }
+
+    public Map.Entry<K, V> floorEntry(K key)
+    {
+        return entry(bounds.lower((Comparable) key, true));
+    }
+
+    public K floorKey(K key)
+    {
+        return key(bounds.lower((Comparable) key, true));
+    }
+
+    public Map.Entry<K, V> ceilingEntry(K key)
+    {
+        return entry(bounds.higher((Comparable) key, true));
+    }
+
+    public K ceilingKey(K key)
+    {
+        return key(bounds.higher((Comparable) key, true));
+    }
+
+    public Map.Entry<K, V> higherEntry(K key)
+    {
+        return entry(bounds.higher((Comparable) key, false));
+    }
+
+    public K higherKey(K key)
+    {
+        return key(bounds.higher((Comparable) key, false));
+    }
+
+    public Map.Entry<K, V> firstEntry()
+    {
+        return entry(bounds.edge(bounds.descending));
+    }
+
+    public Map.Entry<K, V> lastEntry()
+    {
+        return entry(bounds.edge(!bounds.descending));
+    }
+
+    public K firstKey()
+    {
+        return keyOrThrow(bounds.edge(bounds.descending));
+    }
+
+    public K lastKey()
+    {
+        return keyOrThrow(bounds.edge(!bounds.descending));
+    }
+
+    public Map.Entry<K, V> pollFirstEntry()
+    {
+        BinaryTree<K>.Node x = bounds.edge(bounds.descending);
+        Map.Entry<K, V> e = entry(x);
+        if (e != null)
+            tree.delete(x);
+        return e;
+    }
+
+    public Map.Entry<K, V> pollLastEntry()
+    {
+        BinaryTree<K>.Node x = bounds.edge(!bounds.descending);
+        Map.Entry<K, V> e = entry(x);
+        if (e != null)
+            tree.delete(x);
+        return e;
+    }
+
+    /**
+     * Returns the tree's comparator, <code>null</code> standing for
+     * the natural order, reversed for a descending view.
+     */
+    public Comparator<? super K> comparator()
+    {
+        return bounds.comparator();
+    }
+
+    public NavigableMap<K, V> descendingMap()
+    {
+        return new AVLTreeMap<K, V>(bounds.reversed());
+    }
+
+    /**
+     * Returns the keys of this view as an <code>AVLTreeSet</code> over
+     * the same tree.  Adding a key through it maps the key to
+     * <code>null</code>.
+     */
+    public NavigableSet<K> navigableKeySet()
+    {
+        return new AVLTreeSet<K>(bounds);
+    }
+
+    public Set<K> keySet()
+    {
+        return navigableKeySet();
+    }
+
+    public NavigableSet<K> descendingKeySet()
+    {
+        return descendingMap().navigableKeySet();
+    }
+
+    /**
+     * Returns the view of the keys between two bounds, given in the
+     * order of this view.
+     *
+     * @throws IllegalArgumentException if a bound is outside the
+     * bounds of this view, or the bounds are out of order.
+     */
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive)
+    {
+        return new AVLTreeMap<K, V>(bounds.sub((Comparable) fromKey, fromInclusive, (Comparable) toKey, toInclusive));
+    }
+
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive)
+    {
+        return new AVLTreeMap<K, V>(bounds.head((Comparable) toKey, inclusive));
+    }
+
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive)
+    {
+        return new AVLTreeMap<K, V>(bounds.tail((Comparable) fromKey, inclusive));
+    }
+
+    public SortedMap<K, V> subMap(K fromKey, K toKey)
+    {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    public SortedMap<K, V> headMap(K toKey)
+    {
+        return headMap(toKey, false);
+    }
+
+    public SortedMap<K, V> tailMap(K fromKey)
+    {
+        return tailMap(fromKey, true);
+    }
+}
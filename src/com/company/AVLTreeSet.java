@@ -0,0 +1,287 @@
+package com.company;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+
+/**
+ * <code>NavigableSet</code> backed by an <code>AVLTree</code>, so that
+ * the tree can stand in for a <code>java.util.TreeSet</code>.  Every
+ * lookup descends the tree once, <code>size</code> is answered from
+ * the subtree sizes, and iterators follow <code>successor</code> or
+ * <code>predecessor</code> without copying.
+ *
+ * <p>
+ *
+ * As with <code>TreeSet</code>, subsets and the descending set are
+ * views of the same tree: each is this class with optional bounds
+ * and a direction, and changes through any view show in all of them.
+ * A key equal to one already in the tree is not added again.  Keys
+ * must be non-null and mutually <code>Comparable</code>.
+ */
+public class AVLTreeSet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    private final AVLTree<E> tree;
+
+    /** Bounds and direction of this view. */
+    private final TreeBounds<E> bounds;
+
+    /**
+     * Creates an empty set.
+     */
+    public AVLTreeSet()
+    {
+        this(new AVLTree<E>());
+    }
+
+    /**
+     * Creates an empty set whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public AVLTreeSet(Comparator<? super E> comparator)
+    {
+        this(new AVLTree<E>(comparator));
+    }
+
+    /**
+     * Creates a set holding the keys of a collection, bulk-loading the
+     * tree as <code>AVLTree(Iterable)</code> does after dropping
+     * repeated keys.
+     *
+     * @param keys The keys to add.
+     */
+    public AVLTreeSet(Collection<? extends E> keys)
+    {
+        this(distinct(new AVLTree<E>(keys.toArray(new Comparable[keys.size()]))));
+    }
+
+    /**
+     * Deletes all but the first of each run of equal keys from a
+     * freshly built tree.
+     */
+    private static <E> AVLTree<E> distinct(AVLTree<E> tree)
+    {
+        ArrayList<Comparable> repeated = new ArrayList<Comparable>();
+        Comparable previous = null;
+        for (E k : tree) {
+            if (previous != null && tree.compare(previous, (Comparable) k) == 0)
+                repeated.add((Comparable) k);
+            previous = (Comparable) k;
+        }
+
+        if (!repeated.isEmpty())
+            tree.deleteAll(repeated);
+        return tree;
+    }
+
+    /**
+     * Creates a set view of an existing tree.  Keys repeated in the
+     * tree are listed as many times as they occur.
+     *
+     * @param tree The tree holding the keys.
+     */
+    public AVLTreeSet(AVLTree<E> tree)
+    {
+        this(new TreeBounds<E>(tree));
+    }
+
+    AVLTreeSet(TreeBounds<E> bounds)
+    {
+        this.tree = bounds.tree;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Returns the key of a node, or <code>null</code> for
+     * <code>nil</code>.
+     */
+    @SuppressWarnings("unchecked")
+    private E key(BinaryTree<E>.Node x)
+    {
+        return tree.isNil(x) ? null : (E) x.data;
+    }
+
+    public int size()
+    {
+        return bounds.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return first(false) == null;
+    }
+
+    public boolean contains(Object o)
+    {
+        Comparable k = (Comparable) o;
+        return bounds.inRange(k) && !tree.isNil(tree.search(k));
+    }
+
+    /**
+     * Adds a key unless an equal key is already in the tree.
+     *
+     * @throws IllegalArgumentException if the key is outside the
+     * bounds of this view.
+     */
+    public boolean add(E e)
+    {
+        Comparable k = (Comparable) e;
+        if (!bounds.inRange(k))
+            throw new IllegalArgumentException("key out of range");
+        if (!tree.isNil(tree.search(k)))
+            return false;
+
+        tree.insert(k);
+        return true;
+    }
+
+    public boolean remove(Object o)
+    {
+        Comparable k = (Comparable) o;
+        if (!bounds.inRange(k))
+            return false;
+
+        BinaryTree<E>.Node x = tree.search(k);
+        if (tree.isNil(x))
+            return false;
+
+        tree.delete(x);
+        return true;
+    }
+
+    public Iterator<E> iterator()
+    {
+        Iterable<E> keys = bounds.descending
+            ? tree.descendingRange(bounds.lo, bounds.loInclusive, bounds.hi, bounds.hiInclusive)
+            : tree.range(bounds.lo, bounds.loInclusive, bounds.hi, bounds.hiInclusive);
+
+        return keys.iterator();
+    }
+
+    public Iterator<E> descendingIterator()
+    {
+        return descendingSet().iterator();
+    }
+
+    public NavigableSet<E> descendingSet()
+    {
+        return new AVLTreeSet<E>(bounds.reversed());
+    }
+
+    /**
+     * Returns the least key of the view in tree order if
+     * <code>last</code> is <code>false</code>, the greatest otherwise,
+     * or <code>null</code>.
+     */
+    private E first(boolean last)
+    {
+        return key(bounds.edge(last));
+    }
+
+    public E first()
+    {
+        E k = first(bounds.descending);
+        if (k == null)
+            throw new NoSuchElementException();
+        return k;
+    }
+
+    public E last()
+    {
+        E k = first(!bounds.descending);
+        if (k == null)
+            throw new NoSuchElementException();
+        return k;
+    }
+
+    public E pollFirst()
+    {
+        E k = first(bounds.descending);
+        if (k != null)
+            remove(k);
+        return k;
+    }
+
+    public E pollLast()
+    {
+        E k = first(!bounds.descending);
+        if (k != null)
+            remove(k);
+        return k;
+    }
+
+    public E lower(E e)
+    {
+        return key(bounds.lower((Comparable) e, false));
+    }
+
+    public E floor(E e)
+    {
+        return key(bounds.lower((Comparable) e, true));
+    }
+
+    public E ceiling(E e)
+    {
+        return key(bounds.higher((Comparable) e, true));
+    }
+
+    public E higher(E e)
+    {
+        return key(bounds.higher((Comparable) e, false));
+    }
+
+    /**
+     * Returns the tree's comparator, <code>null</code> standing for
+     * the natural order, reversed for a descending view.
+     */
+    public Comparator<? super E> comparator()
+    {
+        return bounds.comparator();
+    }
+
+    /**
+     * Returns the view of the keys between two bounds, given in the
+     * order of this view.
+     *
+     * @throws IllegalArgumentException if a bound is outside the
+     * bounds of this view, or the bounds are out of order.
+     */
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive,
+                                  E toElement, boolean toInclusive)
+    {
+        return new AVLTreeSet<E>(bounds.sub((Comparable) fromElement, fromInclusive,
+                                            (Comparable) toElement, toInclusive));
+    }
+
+    public NavigableSet<E> headSet(E toElement, boolean inclusive)
+    {
+        return new AVLTreeSet<E>(bounds.head((Comparable) toElement, inclusive));
+    }
+
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive)
+    {
+        return new AVLTreeSet<E>(bounds.tail((Comparable) fromElement, inclusive));
+    }
+
+    public SortedSet<E> subSet(E fromElement, E toElement)
+    {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    public SortedSet<E> headSet(E toElement)
+    {
+        return headSet(toElement, false);
+    }
+
+    public SortedSet<E> tailSet(E fromElement)
+    {
+        return tailSet(fromElement, true);
+    }
+}
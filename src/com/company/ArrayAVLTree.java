@@ -0,0 +1,142 @@
+package com.company;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * AVL tree of <code>Comparable</code> keys whose nodes live in the
+ * parallel arrays of <code>PooledAVLTree</code> rather than in
+ * <code>Node</code> objects.  A node costs its slots in four
+ * <code>int</code> arrays plus one key reference, with no object
+ * header, no parent/child references and no outer-instance pointer,
+ * and neighbouring nodes share cache lines.
+ *
+ * <p>
+ *
+ * Nodes are identified by <code>int</code> indices, which play the
+ * role of the opaque <code>Node</code> references returned by
+ * <code>AVLTree</code>.  As in <code>BinarySearchTree</code>, equal
+ * keys are kept in separate nodes, and keys are compared by a
+ * <code>Comparator</code> or in the way <code>compare</code> chooses
+ * for their natural order.
+ */
+public class ArrayAVLTree<E> extends PooledAVLTree {
+    /** Key of each node; <code>null</code> for free slots. */
+    private Object[] keys;
+
+    /** Orders the keys, or <code>null</code> for their natural order. */
+    private final Comparator comparator;
+
+    /** How keys are compared, as in <code>BinarySearchTree</code>. */
+    private int order;
+
+    /**
+     * Creates an empty tree.
+     */
+    public ArrayAVLTree()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates an empty tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public ArrayAVLTree(Comparator<? super E> comparator)
+    {
+        super();
+        keys = new Object[left.length];
+        this.comparator = comparator;
+        order = comparator == null ? BinarySearchTree.UNKNOWN : BinarySearchTree.COMPARATOR;
+    }
+
+    /**
+     * Returns the comparator ordering the keys, or <code>null</code>
+     * if they are in their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparator<? super E> comparator()
+    {
+        return comparator;
+    }
+
+    private int compare(Comparable a, Comparable b)
+    {
+        return BinarySearchTree.compare(order, comparator, a, b);
+    }
+
+    protected void resizeKeys(int capacity)
+    {
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    /**
+     * Frees a node, dropping its key so that it can be collected.
+     *
+     * @param z The node being freed.
+     */
+    protected void release(int z)
+    {
+        keys[z] = null;
+        super.release(z);
+    }
+
+    /**
+     * Returns the key stored in a node.
+     *
+     * @param node The node whose key is returned.
+     */
+    @SuppressWarnings("unchecked")
+    public E key(int node)
+    {
+        return (E) keys[node];
+    }
+
+    /**
+     * Searches the tree for a node with a given key.
+     *
+     * @param k The key being searched for.
+     * @return The node with key <code>k</code> if such a node
+     * exists, or <code>NIL</code> if no node has key <code>k</code>.
+     */
+    public int search(Comparable k)
+    {
+        int x = root;
+        int c;
+
+        while (x != NIL && (c = compare(k, (Comparable) keys[x])) != 0)
+            x = c < 0 ? left[x] : right[x];
+
+        return x;
+    }
+
+    /**
+     * Inserts a key into the tree, creating a new node for it.
+     *
+     * @param k The key to insert.
+     * @return The node created.
+     */
+    public int insert(Comparable k)
+    {
+        int y = NIL;
+        int x = root;
+        boolean asLeft = true;
+
+        if (order == BinarySearchTree.UNKNOWN)
+            order = BinarySearchTree.naturalOrder(k);
+        while (x != NIL) {
+            y = x;
+            asLeft = compare(k, (Comparable) keys[x]) <= 0;
+            x = asLeft ? left[x] : right[x];
+        }
+
+        int z = newNode();
+        keys[z] = k;
+        attach(z, y, asLeft);
+
+        return z;
+    }
+}
@@ -0,0 +1,654 @@
+package com.company;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * B+-tree: a search tree whose nodes each hold up to
+ * <code>order</code> keys or children in arrays, so that a lookup
+ * reads a few wide nodes rather than one node per level.  With the
+ * default order of 64, a tree of 10^8 keys is five levels deep where
+ * an <code>AVLTree</code> is about 27, and each level costs a binary
+ * search over one array instead of a dependent cache miss.
+ *
+ * <p>
+ *
+ * Keys are kept in the leaves, which are linked in both directions,
+ * so that <code>successor</code>, <code>predecessor</code>,
+ * <code>range</code> and the iterator move from leaf to leaf without
+ * climbing the tree.  An interior node with <code>m</code> keys has
+ * <code>m + 1</code> children, its <code>i</code>th key being no
+ * greater than any key under child <code>i + 1</code> and greater
+ * than every key under child <code>i</code>.  Every node but the root
+ * is at least half full.
+ *
+ * <p>
+ *
+ * As in <code>PersistentAVLTree</code>, the tree works on keys rather
+ * than on nodes.  Unlike <code>BinarySearchTree</code>, it holds each
+ * key once: inserting a key already in the tree leaves it unchanged.
+ */
+public class BPlusTree<E> implements Iterable<E> {
+    /** Order used by the constructors that do not take one. */
+    public static final int DEFAULT_ORDER = 64;
+
+    /**
+     * Node of a <code>BPlusTree</code>.  A leaf has no children and
+     * links to its neighbours; an interior node has one more child
+     * than it has keys.  The arrays have one spare slot, so that a
+     * node can overflow by one before it is split.
+     */
+    private static final class Node
+    {
+        /** Number of keys in the node. */
+        int n;
+
+        final Comparable[] keys;
+
+        /** Children, or <code>null</code> in a leaf. */
+        final Node[] children;
+
+        /** Neighbouring leaves, or <code>null</code>. */
+        Node prev, next;
+
+        Node(int order, boolean leaf)
+        {
+            keys = new Comparable[order + 1];
+            children = leaf ? null : new Node[order + 1];
+        }
+
+        boolean isLeaf()
+        {
+            return children == null;
+        }
+    }
+
+    /** Greatest number of keys in a leaf and of children of an interior node. */
+    private final int order;
+
+    /** Least number of keys in a leaf and of children of an interior node, but the root. */
+    private final int minimum;
+
+    private final Comparator comparator;
+
+    /**
+     * How keys are compared, as <code>order</code> is in
+     * <code>BinarySearchTree</code>: by <code>comparator</code>, or
+     * else as chosen from the first key inserted.
+     */
+    private int keyOrder;
+
+    private Node root;
+
+    private int count;
+
+    /**
+     * Creates an empty tree of the default order.
+     */
+    public BPlusTree()
+    {
+        this(DEFAULT_ORDER, null);
+    }
+
+    /**
+     * Creates an empty tree.  An order of 16 to 32 keeps a node's
+     * keys in a few cache lines; larger orders suit trees that will
+     * be paged.
+     *
+     * @param order Greatest number of keys in a leaf and of children
+     * of an interior node, at least 3.
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     * @throws IllegalArgumentException if <code>order</code> is less
+     * than 3.
+     */
+    public BPlusTree(int order, Comparator<? super E> comparator)
+    {
+        if (order < 3)
+            throw new IllegalArgumentException("order " + order + " is less than 3");
+
+        this.order = order;
+        this.minimum = (order + 1) / 2;
+        this.comparator = comparator;
+        keyOrder = comparator == null ? BinarySearchTree.UNKNOWN : BinarySearchTree.COMPARATOR;
+        root = new Node(order, true);
+    }
+
+    private int compare(Comparable a, Comparable b)
+    {
+        return BinarySearchTree.compare(keyOrder, comparator, a, b);
+    }
+
+    /**
+     * Returns the number of keys of <code>x</code> less than
+     * <code>k</code>, or less than or equal to it if
+     * <code>inclusive</code>, by binary search.
+     */
+    private int rank(Node x, Comparable k, boolean inclusive)
+    {
+        int lo = 0;
+        int hi = x.n;
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(x.keys[mid], k);
+            if (c < 0 || (inclusive && c == 0))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        return lo;
+    }
+
+    /**
+     * Returns the leaf where <code>k</code> is or would be inserted.
+     */
+    private Node leaf(Comparable k)
+    {
+        Node x = root;
+        while (!x.isLeaf())
+            x = x.children[rank(x, k, true)];
+
+        return x;
+    }
+
+    /**
+     * Returns the order of the tree.
+     */
+    public int order()
+    {
+        return order;
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the number of levels of the tree, 1 for a tree that is a
+     * single leaf.
+     */
+    public int height()
+    {
+        int h = 1;
+        for (Node x = root; !x.isLeaf(); x = x.children[0])
+            h++;
+
+        return h;
+    }
+
+    /**
+     * Returns the key in the tree equal to <code>k</code>, or
+     * <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E search(Comparable k)
+    {
+        Node x = leaf(k);
+        int i = rank(x, k, false);
+
+        return i < x.n && compare(x.keys[i], k) == 0 ? (E) x.keys[i] : null;
+    }
+
+    /**
+     * Inserts a key into the tree, unless an equal key is already in
+     * it.  A leaf that overflows is split in two, and so on up the
+     * tree, a split root giving the tree a new level.
+     *
+     * @param k The key to insert.
+     * @return <code>true</code> if the key was inserted.
+     */
+    public boolean insert(Comparable k)
+    {
+        if (keyOrder == BinarySearchTree.UNKNOWN)
+            keyOrder = BinarySearchTree.naturalOrder(k);
+        if (!insert(root, k))
+            return false;
+
+        if (root.n > (root.isLeaf() ? order : order - 1)) {
+            Node left = root;
+            root = new Node(order, false);
+            root.children[0] = left;
+            split(root, 0);
+        }
+
+        count++;
+        return true;
+    }
+
+    /**
+     * Inserts a key into the subtree rooted at <code>x</code>,
+     * splitting any child left overfull; <code>x</code> itself may be
+     * left overfull by one.
+     */
+    private boolean insert(Node x, Comparable k)
+    {
+        if (x.isLeaf()) {
+            int i = rank(x, k, false);
+            if (i < x.n && compare(x.keys[i], k) == 0)
+                return false;
+
+            System.arraycopy(x.keys, i, x.keys, i + 1, x.n - i);
+            x.keys[i] = k;
+            x.n++;
+            return true;
+        }
+
+        int i = rank(x, k, true);
+        Node child = x.children[i];
+        if (!insert(child, k))
+            return false;
+
+        if (child.n > (child.isLeaf() ? order : order - 1))
+            split(x, i);
+        return true;
+    }
+
+    /**
+     * Splits the overfull child <code>i</code> of <code>x</code> in
+     * two, adding the right half as child <code>i + 1</code>.  A leaf
+     * copies its right half's first key up as the separator; an
+     * interior node moves its middle key up.
+     */
+    private void split(Node x, int i)
+    {
+        Node left = x.children[i];
+        Node right = new Node(order, left.isLeaf());
+        Comparable separator;
+
+        if (left.isLeaf()) {
+            int half = left.n / 2;
+            right.n = left.n - half;
+            System.arraycopy(left.keys, half, right.keys, 0, right.n);
+            separator = right.keys[0];
+
+            right.next = left.next;
+            right.prev = left;
+            if (left.next != null)
+                left.next.prev = right;
+            left.next = right;
+            clear(left, half);
+        }
+        else {
+            int mid = left.n / 2;
+            separator = left.keys[mid];
+            right.n = left.n - mid - 1;
+            System.arraycopy(left.keys, mid + 1, right.keys, 0, right.n);
+            System.arraycopy(left.children, mid + 1, right.children, 0, right.n + 1);
+            clear(left, mid);
+        }
+
+        System.arraycopy(x.keys, i, x.keys, i + 1, x.n - i);
+        System.arraycopy(x.children, i + 1, x.children, i + 2, x.n - i);
+        x.keys[i] = separator;
+        x.children[i + 1] = right;
+        x.n++;
+    }
+
+    /**
+     * Cuts a node down to its first <code>n</code> keys, and
+     * <code>n + 1</code> children if it has any, clearing the rest so
+     * that they can be collected.
+     */
+    private static void clear(Node x, int n)
+    {
+        for (int j = n; j < x.n; j++)
+            x.keys[j] = null;
+        if (!x.isLeaf())
+            for (int j = n + 1; j <= x.n; j++)
+                x.children[j] = null;
+        x.n = n;
+    }
+
+    /**
+     * Deletes a key from the tree.  A node left less than half full
+     * borrows a key from a sibling that can spare one, or else is
+     * merged with it, and so on up the tree, a root left with one
+     * child giving way to it.
+     *
+     * @param k The key to delete.
+     * @return <code>true</code> if the key was in the tree.
+     */
+    public boolean delete(Comparable k)
+    {
+        if (!delete(root, k))
+            return false;
+
+        if (!root.isLeaf() && root.n == 0)
+            root = root.children[0];
+
+        count--;
+        return true;
+    }
+
+    /**
+     * Deletes a key from the subtree rooted at <code>x</code>, fixing
+     * any child left underfull; <code>x</code> itself may be left
+     * underfull by one.  Separators equal to the key are left in
+     * place, as they still divide the keys correctly.
+     */
+    private boolean delete(Node x, Comparable k)
+    {
+        if (x.isLeaf()) {
+            int i = rank(x, k, false);
+            if (i == x.n || compare(x.keys[i], k) != 0)
+                return false;
+
+            System.arraycopy(x.keys, i + 1, x.keys, i, x.n - i - 1);
+            x.keys[--x.n] = null;
+            return true;
+        }
+
+        int i = rank(x, k, true);
+        Node child = x.children[i];
+        if (!delete(child, k))
+            return false;
+
+        if (child.n < (child.isLeaf() ? minimum : minimum - 1))
+            refill(x, i);
+        return true;
+    }
+
+    /**
+     * Brings the underfull child <code>i</code> of <code>x</code> back
+     * to half full, from its left sibling if it can spare a key, else
+     * from its right sibling, else by merging with one of them.
+     */
+    private void refill(Node x, int i)
+    {
+        Node child = x.children[i];
+        Node left = i > 0 ? x.children[i - 1] : null;
+        Node right = i < x.n ? x.children[i + 1] : null;
+        int spare = child.isLeaf() ? minimum : minimum - 1;
+
+        if (left != null && left.n > spare)
+            borrowLeft(x, i);
+        else if (right != null && right.n > spare)
+            borrowRight(x, i);
+        else if (left != null)
+            merge(x, i - 1);
+        else
+            merge(x, i);
+    }
+
+    /**
+     * Moves the last key of child <code>i - 1</code> of <code>x</code>
+     * to the front of child <code>i</code>.
+     */
+    private void borrowLeft(Node x, int i)
+    {
+        Node child = x.children[i];
+        Node left = x.children[i - 1];
+
+        System.arraycopy(child.keys, 0, child.keys, 1, child.n);
+        if (child.isLeaf()) {
+            child.keys[0] = left.keys[left.n - 1];
+            x.keys[i - 1] = child.keys[0];
+        }
+        else {
+            System.arraycopy(child.children, 0, child.children, 1, child.n + 1);
+            child.keys[0] = x.keys[i - 1];
+            child.children[0] = left.children[left.n];
+            x.keys[i - 1] = left.keys[left.n - 1];
+            left.children[left.n] = null;
+        }
+        child.n++;
+        left.keys[--left.n] = null;
+    }
+
+    /**
+     * Moves the first key of child <code>i + 1</code> of
+     * <code>x</code> to the end of child <code>i</code>.
+     */
+    private void borrowRight(Node x, int i)
+    {
+        Node child = x.children[i];
+        Node right = x.children[i + 1];
+
+        if (child.isLeaf()) {
+            child.keys[child.n] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            x.keys[i] = right.keys[0];
+        }
+        else {
+            child.keys[child.n] = x.keys[i];
+            child.children[child.n + 1] = right.children[0];
+            x.keys[i] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            System.arraycopy(right.children, 1, right.children, 0, right.n);
+            right.children[right.n] = null;
+        }
+        child.n++;
+        right.keys[--right.n] = null;
+    }
+
+    /**
+     * Merges child <code>i + 1</code> of <code>x</code> into child
+     * <code>i</code>, removing their separator from <code>x</code>.
+     * An interior node takes the separator down between its keys and
+     * its sibling's.
+     */
+    private void merge(Node x, int i)
+    {
+        Node left = x.children[i];
+        Node right = x.children[i + 1];
+
+        if (left.isLeaf()) {
+            System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+            left.n += right.n;
+            left.next = right.next;
+            if (right.next != null)
+                right.next.prev = left;
+        }
+        else {
+            left.keys[left.n] = x.keys[i];
+            System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+            System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+            left.n += right.n + 1;
+        }
+
+        System.arraycopy(x.keys, i + 1, x.keys, i, x.n - i - 1);
+        System.arraycopy(x.children, i + 2, x.children, i + 1, x.n - i - 1);
+        x.n--;
+        x.keys[x.n] = null;
+        x.children[x.n + 1] = null;
+    }
+
+    /**
+     * Returns the least key in the tree, or <code>null</code> if the
+     * tree is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E minimum()
+    {
+        Node x = root;
+        while (!x.isLeaf())
+            x = x.children[0];
+
+        return (E) x.keys[0];
+    }
+
+    /**
+     * Returns the greatest key in the tree, or <code>null</code> if
+     * the tree is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E maximum()
+    {
+        Node x = root;
+        while (!x.isLeaf())
+            x = x.children[x.n];
+
+        return x.n == 0 ? null : (E) x.keys[x.n - 1];
+    }
+
+    /**
+     * Returns the least key in the tree greater than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E successor(Comparable k)
+    {
+        Node x = leaf(k);
+        int i = rank(x, k, true);
+        if (i == x.n) {
+            x = x.next;
+            i = 0;
+        }
+
+        return x == null ? null : (E) x.keys[i];
+    }
+
+    /**
+     * Returns the greatest key in the tree less than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E predecessor(Comparable k)
+    {
+        Node x = root;
+        while (!x.isLeaf())
+            x = x.children[rank(x, k, false)];
+
+        int i = rank(x, k, false) - 1;
+        if (i < 0) {
+            x = x.prev;
+            i = x == null ? 0 : x.n - 1;
+        }
+
+        return x == null ? null : (E) x.keys[i];
+    }
+
+    /**
+     * Returns the keys between two bounds in ascending order, lazily:
+     * each iterator descends once to the first key in the range and
+     * then reads the leaves in turn, so that reading <code>k</code>
+     * keys costs O(log n + k) with few cache misses.
+     *
+     * @param lo Lower bound, or <code>null</code> for none.
+     * @param loInclusive Whether a key equal to <code>lo</code> is in
+     * the range.
+     * @param hi Upper bound, or <code>null</code> for none.
+     * @param hiInclusive Whether a key equal to <code>hi</code> is in
+     * the range.
+     */
+    public Iterable<E> range(final Comparable lo, final boolean loInclusive,
+                             final Comparable hi, final boolean hiInclusive)
+    {
+        return new Iterable<E>() {
+            public Iterator<E> iterator() {
+                Node x = root;
+                if (lo == null) {
+                    while (!x.isLeaf())
+                        x = x.children[0];
+                    return new KeyIterator(x, 0, hi, hiInclusive);
+                }
+
+                while (!x.isLeaf())
+                    x = x.children[rank(x, lo, true)];
+                return new KeyIterator(x, rank(x, lo, !loInclusive), hi, hiInclusive);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the keys in the tree, in order.
+     */
+    public Iterator<E> iterator()
+    {
+        return range(null, false, null, false).iterator();
+    }
+
+    /**
+     * Iterator over the keys of the leaves from a given position up to
+     * a bound.  The tree must not be changed while it is in use.
+     */
+    private class KeyIterator implements Iterator<E>
+    {
+        /** Leaf holding the next key, or <code>null</code> at the end. */
+        private Node leaf;
+
+        private int i;
+
+        private final Comparable hi;
+
+        private final boolean hiInclusive;
+
+        KeyIterator(Node leaf, int i, Comparable hi, boolean hiInclusive)
+        {
+            this.leaf = leaf;
+            this.i = i;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            settle();
+        }
+
+        /**
+         * Moves past the end of a leaf, and ends the iteration at the
+         * bound.
+         */
+        private void settle()
+        {
+            while (leaf != null && i == leaf.n) {
+                leaf = leaf.next;
+                i = 0;
+            }
+
+            if (leaf != null && hi != null) {
+                int c = compare(leaf.keys[i], hi);
+                if (c > 0 || (c == 0 && !hiInclusive))
+                    leaf = null;
+            }
+        }
+
+        public boolean hasNext()
+        {
+            return leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next()
+        {
+            if (leaf == null)
+                throw new NoSuchElementException();
+
+            E k = (E) leaf.keys[i++];
+            settle();
+            return k;
+        }
+    }
+
+    /**
+     * Traverses the tree in inorder, applying a <code>Visitor</code>
+     * to each key.
+     *
+     * @param visitor Object implementing <code>Visitor</code> whose
+     * <code>visit</code> method is applied to each key.
+     */
+    public void inorderWalk(BinaryTree.Visitor visitor)
+    {
+        for (E k : this)
+            visitor.visit(k);
+    }
+
+    /**
+     * Returns the keys in inorder, separated by spaces.
+     */
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        for (E k : this) {
+            if (result.length() > 0)
+                result.append(' ');
+            result.append(k);
+        }
+
+        return result.toString();
+    }
+}
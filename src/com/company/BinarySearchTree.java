@@ -1,5 +1,12 @@
 package com.company;
 
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implements the {@link Dictionary} interface as a binary search tree
@@ -12,16 +19,145 @@ package com.company;
  * When extending this class, you must instantiate a new
  * <code>nil</code> of the proper type and override constructors along
  * with the other methods.  See RedBlackTree for an example.
+ *
+ * <p>
+ *
+ * Keys are kept in their natural order unless the tree is created
+ * with a <code>Comparator</code>.  All comparisons go through
+ * <code>compare</code>, which compares <code>Integer</code>,
+ * <code>Long</code> and <code>String</code> keys directly rather than
+ * through <code>Comparable</code>, so that each tree's comparisons
+ * stay monomorphic however many key types the program uses.
+ *
+ * <p>
+ *
+ * The keys can also be read lazily, in order, through
+ * <code>iterator</code>, <code>spliterator</code> and
+ * <code>stream</code>, none of which copy the tree.  The tree must not
+ * be changed while they are in use.
  */
 
-public class BinarySearchTree<E> extends BinaryTree<E> {
+public class BinarySearchTree<E> extends BinaryTree<E> implements Iterable<E> {
+    /** Number of nodes in the tree. */
+    protected int count;
+
+    /** Ways in which <code>compare</code> can compare keys. */
+    protected static final int UNKNOWN = 0, NATURAL = 1, INTEGER = 2, LONG = 3, STRING = 4, COMPARATOR = 5;
+
+    /** Orders the keys, or <code>null</code> for their natural order. */
+    protected final Comparator comparator;
+
+    /**
+     * How <code>compare</code> compares keys: by
+     * <code>comparator</code>, or else as chosen by
+     * <code>chooseOrder</code> from the first key inserted.
+     */
+    protected int order;
+
     /**
      * Creates a binary search tree with just a <code>nil</code>,
      * which is the root.
      */
     public BinarySearchTree()
+    {
+	this(null);
+    }
+
+    /**
+     * Creates an empty binary search tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public BinarySearchTree(Comparator<? super E> comparator)
     {
 	super();
+	this.comparator = comparator;
+	order = comparator == null ? UNKNOWN : COMPARATOR;
+    }
+
+    /**
+     * Returns the comparator ordering the keys, or <code>null</code>
+     * if they are in their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparator<? super E> comparator()
+    {
+	return comparator;
+    }
+
+    /**
+     * Compares two keys in the order of the tree.  A key of another
+     * class than the one chosen falls back to
+     * <code>compareTo</code>.
+     *
+     * @return A negative integer, zero or a positive integer as
+     * <code>a</code> is less than, equal to or greater than
+     * <code>b</code>.
+     */
+    protected final int compare(Comparable a, Comparable b)
+    {
+	return compare(order, comparator, a, b);
+    }
+
+    /**
+     * Compares two keys as <code>compare</code> does in a tree with
+     * the given <code>order</code> and <code>comparator</code>.  Trees
+     * that keep their keys outside <code>Node</code> objects, such as
+     * <code>ArrayAVLTree</code>, compare through it too.
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(int order, Comparator comparator, Comparable a, Comparable b)
+    {
+	switch (order) {
+	case INTEGER:
+	    if (a instanceof Integer && b instanceof Integer)
+		return Integer.compare(((Integer) a).intValue(), ((Integer) b).intValue());
+	    break;
+	case LONG:
+	    if (a instanceof Long && b instanceof Long)
+		return Long.compare(((Long) a).longValue(), ((Long) b).longValue());
+	    break;
+	case STRING:
+	    if (a instanceof String && b instanceof String)
+		return ((String) a).compareTo((String) b);
+	    break;
+	case COMPARATOR:
+	    return comparator.compare(a, b);
+	}
+
+	return a.compareTo(b);
+    }
+
+    /**
+     * Chooses how to compare keys in natural order from the class of
+     * the first key inserted; see <code>naturalOrder</code>.
+     *
+     * @param k A key about to be inserted.
+     */
+    protected void chooseOrder(Comparable k)
+    {
+	if (order == UNKNOWN)
+	    order = naturalOrder(k);
+    }
+
+    /**
+     * Returns how to compare keys in natural order given the class of
+     * one of them: directly for <code>Integer</code>,
+     * <code>Long</code> and <code>String</code>, all final classes
+     * whose natural order only accepts their own kind, and through
+     * <code>compareTo</code> otherwise.
+     */
+    static int naturalOrder(Comparable k)
+    {
+	if (k instanceof Integer)
+	    return INTEGER;
+	if (k instanceof Long)
+	    return LONG;
+	if (k instanceof String)
+	    return STRING;
+	return NATURAL;
     }
 
     /**
@@ -40,7 +176,7 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
     {
 	int c;
 
-	if (x == nil || (c = k.compareTo(x.data)) == 0)
+	if (x == nil || (c = compare(k, x.data)) == 0)
 	    return x;
 
 	if (c < 0)
@@ -65,7 +201,7 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
 	Node x = root;
 	int c;
 
-	while (x != nil && (c = k.compareTo(x.data)) != 0) {
+	while (x != nil && (c = compare(k, x.data)) != 0) {
 	    if (c < 0)
 		x = x.left;
 	    else
@@ -189,10 +325,19 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
     {
 	Node z = new Node(data);
 	treeInsert(z);
+	count++;
 
 	return z;
     }
 
+    /**
+     * Returns the number of nodes in the tree.
+     */
+    public int size()
+    {
+	return count;
+    }
+
     /**
      * Inserts a node into the tree.
      *
@@ -202,9 +347,10 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
     {
 	    Node y = nil;
 	    Node x = root;
+        chooseOrder(z.data);
         while (x != nil) {
             y = x;
-            if (z.compareTo(x) <= 0) {
+            if (compare(z.data, x.data) <= 0) {
                 x = x.left;
             }
             else {
@@ -216,7 +362,7 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
         if (y == nil) {
             root = z;        // the tree had been empty
         }else {
-            if (z.compareTo(y) <= 0) {
+            if (compare(z.data, y.data) <= 0) {
                 y.left = z;
             }else {
                 y.right = z;
@@ -242,6 +388,31 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
 	if (z == nil)
 	    throw new DeleteSentinelException();
 
+	treeDelete(z);
+	count--;
+    }
+
+    /**
+     * Unlinks a node from the tree, moving its successor into its
+     * place if it has two children.
+     *
+     * @param z The node to be unlinked, which is not the sentinel.
+     */
+    protected void treeDelete(Node z)
+    {
+	unlink(z);
+    }
+
+    /**
+     * Does the work of <code>treeDelete</code>.  Calls itself, not
+     * <code>treeDelete</code>, to free the successor, so that
+     * subclasses overriding <code>treeDelete</code> see one call per
+     * delete.
+     *
+     * @param z The node to be unlinked, which is not the sentinel.
+     */
+    private void unlink(Node z)
+    {
 	Node x;			// Replaces z as the subtree's root
 
 	if (z.left == nil)
@@ -251,13 +422,16 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
 		    x = z.left;
 	    else {        // neither child is nil
             x = successor(z); // replace with next item
-            delete(x);    // Free x from its current position
+            unlink(x);        // Free x from its current position
             // Splice out z and put x in its place by fixing links
             // with children.
+            // z.right is nil if x was z's right child; the sentinel's
+            // parent must stay nil.
             x.left = z.left;
             x.right = z.right;
             x.left.parent = x;
-            x.right.parent = x;
+            if (x.right != nil)
+                x.right.parent = x;
         }
 
 	// Fix links between the parent of the subtree and x.
@@ -274,12 +448,488 @@ public class BinarySearchTree<E> extends BinaryTree<E> {
     }
 
     /**
-     * Returns the data stored in a node.
+     * Rotates the edge between a node and its right child, which takes
+     * the node's place, as LEFT-ROTATE in <i>Introduction to
+     * Algorithms</i> does, in O(1) time.  Only links change; the
+     * inorder sequence of keys is the same.  Subclasses that keep data
+     * computed from subtrees override it to bring the two nodes up to
+     * date.
      *
-     * @param node The node whose data is returned.
-     * @throws ClassCastException if <code>node</code> does not
-     * reference a <code>Node</code> object.
+     * @param x The node, whose right child is not the sentinel.
+     */
+    protected void leftRotate(Node x)
+    {
+	Node y = x.right;
+
+	x.right = y.left;
+	if (y.left != nil)
+	    y.left.parent = x;
+	y.parent = x.parent;
+	if (x.parent == nil)
+	    root = y;
+	else
+	    if (x == x.parent.left)
+		x.parent.left = y;
+	    else
+		x.parent.right = y;
+	y.left = x;
+	x.parent = y;
+    }
+
+    /**
+     * Rotates the edge between a node and its left child, which takes
+     * the node's place; the mirror image of <code>leftRotate</code>.
+     *
+     * @param x The node, whose left child is not the sentinel.
+     */
+    protected void rightRotate(Node x)
+    {
+	Node y = x.left;
+
+	x.left = y.right;
+	if (y.right != nil)
+	    y.right.parent = x;
+	y.parent = x.parent;
+	if (x.parent == nil)
+	    root = y;
+	else
+	    if (x == x.parent.right)
+		x.parent.right = y;
+	    else
+		x.parent.left = y;
+	y.right = x;
+	x.parent = y;
+    }
+
+    /**
+     * Returns an immutable copy of the keys laid out for fast
+     * lookups, as described in <code>FrozenTree</code>, in O(n) time.
+     * Later changes to this tree do not show in the copy.
+     */
+    public FrozenTree<E> freeze()
+    {
+	Comparable[] sorted = new Comparable[size()];
+	int i = 0;
+	for (E k : this)
+	    sorted[i++] = (Comparable) k;
+
+	return new FrozenTree<E>(sorted, comparator());
+    }
+
+    /**
+     * Returns an iterator over the keys in the tree, in order.  It
+     * moves from node to node with <code>successor</code>, so it uses
+     * constant space.
+     */
+    public Iterator<E> iterator()
+    {
+	return new KeyIterator(minimum(), nil, false);
+    }
+
+    /**
+     * Returns a <code>Spliterator</code> over the keys in the tree, in
+     * order.  It splits the tree by subtree, without copying it, so
+     * that parallel streams can work on each part separately.
+     */
+    public Spliterator<E> spliterator()
+    {
+	return new KeySpliterator(minimum(), nil, 0, size());
+    }
+
+    /**
+     * Returns a sequential stream of the keys in the tree, in order.
+     */
+    public Stream<E> stream()
+    {
+	return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the keys in the tree, in order.
+     */
+    public Stream<E> parallelStream()
+    {
+	return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Returns the first node in inorder whose key is above a bound.
+     * Equal keys may lie on either side of a node, so the descent
+     * goes left on every node that qualifies, which finds the first
+     * of several equal keys.
+     *
+     * @param lo The bound, or <code>null</code> for no bound.
+     * @param inclusive Whether a key equal to <code>lo</code>
+     * qualifies.
+     * @return The node, or the sentinel <code>nil</code> if no key is
+     * above the bound.
+     */
+    protected Node lowerBound(Comparable lo, boolean inclusive)
+    {
+	if (lo == null)
+	    return minimum();
+
+	Node x = root;
+	Node y = nil;
+
+	while (x != nil) {
+	    int c = compare(x.data, lo);
+	    if (c > 0 || (inclusive && c == 0)) {
+		y = x;
+		x = x.left;
+	    }
+	    else
+		x = x.right;
+	}
+
+	return y;
+    }
+
+    /**
+     * Returns the last node in inorder whose key is below a bound;
+     * the mirror image of <code>lowerBound</code>.
+     *
+     * @param hi The bound, or <code>null</code> for no bound.
+     * @param inclusive Whether a key equal to <code>hi</code>
+     * qualifies.
+     * @return The node, or the sentinel <code>nil</code> if no key is
+     * below the bound.
+     */
+    protected Node upperBound(Comparable hi, boolean inclusive)
+    {
+	if (hi == null)
+	    return maximum();
+
+	Node x = root;
+	Node y = nil;
+
+	while (x != nil) {
+	    int c = compare(x.data, hi);
+	    if (c < 0 || (inclusive && c == 0)) {
+		y = x;
+		x = x.right;
+	    }
+	    else
+		x = x.left;
+	}
+
+	return y;
+    }
+
+    /**
+     * Returns the node with the greatest key less than or equal to a
+     * given key, which need not be in the tree.  Descends the tree
+     * once and changes nothing.
+     *
+     * @param k The key.
+     * @return The node, or the sentinel <code>nil</code> if every key
+     * is greater than <code>k</code>.
+     */
+    public Node floor(Comparable k)
+    {
+	return upperBound(k, true);
+    }
+
+    /**
+     * Returns the node with the least key greater than or equal to a
+     * given key, which need not be in the tree.
+     *
+     * @param k The key.
+     * @return The node, or the sentinel <code>nil</code> if every key
+     * is less than <code>k</code>.
+     */
+    public Node ceiling(Comparable k)
+    {
+	return lowerBound(k, true);
+    }
+
+    /**
+     * Returns the node with the greatest key strictly less than a
+     * given key, which need not be in the tree.
+     *
+     * @param k The key.
+     * @return The node, or the sentinel <code>nil</code> if there is
+     * none.
+     */
+    public Node lower(Comparable k)
+    {
+	return upperBound(k, false);
+    }
+
+    /**
+     * Returns the node with the least key strictly greater than a
+     * given key, which need not be in the tree.
+     *
+     * @param k The key.
+     * @return The node, or the sentinel <code>nil</code> if there is
+     * none.
+     */
+    public Node higher(Comparable k)
+    {
+	return lowerBound(k, false);
+    }
+
+    /**
+     * Returns the keys between two bounds in ascending order, lazily:
+     * each iterator descends once to the first key in the range and
+     * then follows <code>successor</code>, so that reading
+     * <code>k</code> keys costs O(h + k) on a tree of height
+     * <code>h</code>.
+     *
+     * @param lo Lower bound, or <code>null</code> for none.
+     * @param loInclusive Whether a key equal to <code>lo</code> is in
+     * the range.
+     * @param hi Upper bound, or <code>null</code> for none.
+     * @param hiInclusive Whether a key equal to <code>hi</code> is in
+     * the range.
+     */
+    public Iterable<E> range(final Comparable lo, final boolean loInclusive,
+			     final Comparable hi, final boolean hiInclusive)
+    {
+	return new Iterable<E>() {
+	    public Iterator<E> iterator() {
+		Node first = lowerBound(lo, loInclusive);
+		Node last = upperBound(hi, hiInclusive);
+		if (first == nil || last == nil || compare(first.data, last.data) > 0)
+		    return new KeyIterator(nil, nil, false);
+		return new KeyIterator(first, successor(last), false);
+	    }
+	};
+    }
+
+    /**
+     * Returns the keys between two bounds in descending order, lazily,
+     * as <code>range</code> does but following
+     * <code>predecessor</code>.
+     *
+     * @param lo Lower bound, or <code>null</code> for none.
+     * @param loInclusive Whether a key equal to <code>lo</code> is in
+     * the range.
+     * @param hi Upper bound, or <code>null</code> for none.
+     * @param hiInclusive Whether a key equal to <code>hi</code> is in
+     * the range.
+     */
+    public Iterable<E> descendingRange(final Comparable lo, final boolean loInclusive,
+				       final Comparable hi, final boolean hiInclusive)
+    {
+	return new Iterable<E>() {
+	    public Iterator<E> iterator() {
+		Node first = lowerBound(lo, loInclusive);
+		Node last = upperBound(hi, hiInclusive);
+		if (first == nil || last == nil || compare(first.data, last.data) > 0)
+		    return new KeyIterator(nil, nil, true);
+		return new KeyIterator(last, predecessor(first), true);
+	    }
+	};
+    }
+
+    /**
+     * Returns the number of keys between two bounds, stepping through
+     * them from the first one in O(h + k) time.
+     *
+     * @param lo Lower bound, or <code>null</code> for none.
+     * @param loInclusive Whether a key equal to <code>lo</code> is
+     * counted.
+     * @param hi Upper bound, or <code>null</code> for none.
+     * @param hiInclusive Whether a key equal to <code>hi</code> is
+     * counted.
+     */
+    public int rangeCount(Comparable lo, boolean loInclusive, Comparable hi, boolean hiInclusive)
+    {
+	Node x = lowerBound(lo, loInclusive);
+	Node last = upperBound(hi, hiInclusive);
+	if (x == nil || last == nil || compare(x.data, last.data) > 0)
+	    return 0;
+
+	int n = x.copies();
+	while (x != last) {
+	    x = successor(x);
+	    n += x.copies();
+	}
+
+	return n;
+    }
+
+    /**
+     * Iterator over the keys of the nodes from a given node up to,
+     * but not including, a fence node, in either direction.
+     * <code>remove</code> deletes the node of the last key returned;
+     * the iterator has already moved past it, and
+     * <code>delete</code> relinks nodes rather than moving keys
+     * between them, so the iteration carries on unaffected.  A node
+     * holding several copies of its key, as in an
+     * <code>AVLMultiset</code>, returns its key once per copy.
      */
+    protected class KeyIterator implements Iterator<E>
+    {
+	/** Node whose key is returned next, or <code>fence</code>. */
+	private Node next;
+
+	/** Node whose key was returned last, or <code>nil</code>. */
+	private Node last;
+
+	/** Number of copies of <code>next</code>'s key already returned. */
+	private int returned;
+
+	/** Node that ends the iteration, or <code>nil</code>. */
+	private final Node fence;
+
+	/** Whether to move by <code>predecessor</code> rather than <code>successor</code>. */
+	private final boolean descending;
+
+	protected KeyIterator(Node first, Node fence, boolean descending)
+	{
+	    next = first;
+	    this.fence = fence;
+	    this.descending = descending;
+	    last = nil;
+	}
+
+	public boolean hasNext()
+	{
+	    return next != fence;
+	}
+
+	@SuppressWarnings("unchecked")
+	public E next()
+	{
+	    if (next == fence)
+		throw new NoSuchElementException();
+
+	    last = next;
+	    if (++returned >= last.copies()) {
+		returned = 0;
+		next = descending ? predecessor(last) : successor(last);
+	    }
+	    return (E) last.data;
+	}
+
+	public void remove()
+	{
+	    if (last == nil)
+		throw new IllegalStateException();
+
+	    if (next == last)
+		returned--;     // one of its copies goes
+	    delete(last);
+	    last = nil;
+	}
+    }
+
+    /**
+     * <code>Spliterator</code> over the keys of the nodes from
+     * <code>current</code> up to, but not including,
+     * <code>fence</code>, in the manner of
+     * <code>java.util.TreeMap</code>'s.  A split hands the first part
+     * of the range, up to a node near its middle, to a new
+     * spliterator: the root for the first split, then the right child
+     * of the new first node, or the left child of the fence.  Only the
+     * unsplit spliterator knows its exact size; the others halve the
+     * estimate at each split.  Equal keys may repeat, so the keys are
+     * not reported <code>DISTINCT</code>.
+     */
+    protected class KeySpliterator implements Spliterator<E>
+    {
+	/** First node not yet traversed. */
+	private Node current;
+
+	/** Node that ends the range, or <code>nil</code> for the end of the tree. */
+	private final Node fence;
+
+	/** 0 before the first split, 1 after splitting at <code>current</code>'s right, -1 at <code>fence</code>'s left. */
+	private int side;
+
+	/** Estimated number of keys left. */
+	private long est;
+
+	/** Number of copies of <code>current</code>'s key already traversed. */
+	private int returned;
+
+	protected KeySpliterator(Node current, Node fence, int side, long est)
+	{
+	    this.current = current;
+	    this.fence = fence;
+	    this.side = side;
+	    this.est = est;
+	}
+
+	public Spliterator<E> trySplit()
+	{
+	    Node e = current;
+	    Node s;
+
+	    if (e == nil || e == fence)
+		s = nil;
+	    else if (side == 0)
+		s = root;
+	    else if (side > 0)
+		s = e.right;
+	    else
+		s = fence != nil ? fence.left : nil;
+
+	    if (s == nil || s == e || s == fence || compare(e.data, s.data) >= 0)
+		return null;
+
+	    side = 1;
+	    current = s;
+	    est >>>= 1;
+	    KeySpliterator prefix = new KeySpliterator(e, s, -1, est);
+	    prefix.returned = returned;
+	    returned = 0;
+	    return prefix;
+	}
+
+	@SuppressWarnings("unchecked")
+	public boolean tryAdvance(Consumer<? super E> action)
+	{
+	    if (current == nil || current == fence)
+		return false;
+
+	    Node x = current;
+	    if (++returned >= x.copies()) {
+		returned = 0;
+		current = successor(x);
+	    }
+	    action.accept((E) x.data);
+	    return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEachRemaining(Consumer<? super E> action)
+	{
+	    Node x = current;
+	    int skip = returned;
+	    current = fence;
+	    returned = 0;
+
+	    while (x != nil && x != fence) {
+		for (int i = skip; i < x.copies(); i++)
+		    action.accept((E) x.data);
+		skip = 0;
+		x = successor(x);
+	    }
+	}
+
+	public long estimateSize()
+	{
+	    return est;
+	}
+
+	public int characteristics()
+	{
+	    return (side == 0 ? Spliterator.SIZED : 0)
+		| Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL;
+	}
+
+	/**
+	 * Returns the tree's comparator, or <code>null</code> if the
+	 * keys are in their natural order.
+	 */
+	public Comparator<? super E> getComparator()
+	{
+	    return comparator();
+	}
+    }
 }
 
 // $Id: BinarySearchTree.java,v 1.1 2003/10/14 16:56:20 thc Exp $
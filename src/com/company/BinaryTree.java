@@ -1,7 +1,7 @@
 package com.company;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Random;
 
 /**
@@ -14,7 +14,23 @@ public class BinaryTree<E> {
     /** Sentinel, replaces NIL in the textbook's code. */
     protected Node nil;
 
-    private ArrayList<Node> arrayList;
+    /**
+     * Hash index from each key to the nodes holding it.  Nodes are
+     * placed randomly, so the tree shape cannot be used to find a
+     * key; the index is maintained by <code>insert</code> and
+     * <code>delete</code> instead.  Keys must have
+     * <code>equals</code> and <code>hashCode</code> consistent with
+     * <code>compareTo</code>.  Created by the first
+     * <code>insert</code>, since subclasses that search by key order
+     * never use it.
+     */
+    private HashMap<Comparable, ArrayList<Node>> index;
+
+    /**
+     * Source of the random left/right choices made by inserts;
+     * created along with <code>index</code>.
+     */
+    private Random random;
 
 
     /**
@@ -37,6 +53,13 @@ public class BinaryTree<E> {
     protected class Node implements Comparable
     {
         protected int height;
+
+        /**
+         * Number of keys in the subtree rooted here, counting every
+         * copy of a key; kept by <code>AVLTree</code>.
+         */
+        protected int size;
+
         /** The data stored in the node. */
         protected Comparable data;
 
@@ -136,6 +159,16 @@ public class BinaryTree<E> {
         public int getBalance() {
             return this.left.height - this.right.height;
         }
+
+        /**
+         * Returns the number of equal keys the node stands for: 1,
+         * except in an <code>AVLMultiset</code>, whose nodes count the
+         * copies of their key.
+         */
+        protected int copies()
+        {
+            return 1;
+        }
     }
 
     /**
@@ -159,7 +192,6 @@ public class BinaryTree<E> {
     {
         setNil(new Node(null));
         root = nil;
-        arrayList = new ArrayList<Node>();
     }
 
     /**
@@ -173,6 +205,9 @@ public class BinaryTree<E> {
         return node == nil;
     }
 
+    /** Orders in which <code>walk</code> visits the nodes. */
+    protected static final int PREORDER = 0, INORDER = 1, POSTORDER = 2;
+
     /**
      * Traverses the tree in inorder applying a <code>Visitor</code>
      * to each node.
@@ -182,7 +217,7 @@ public class BinaryTree<E> {
      */
     public void inorderWalk(Visitor visitor)
     {
-        inorderWalk(root, visitor);
+        walk(root, INORDER, visitor);
     }
 
     /**
@@ -196,21 +231,26 @@ public class BinaryTree<E> {
      */
     protected void inorderWalk(Node x, Visitor visitor)
     {
-        if (x != nil) {
-            inorderWalk(x.left, visitor);
-            System.out.print(visitor.visit(x) + " ");
-            inorderWalk(x.right, visitor);
-        }
+        walk(x, INORDER, visitor);
     }
 
+    /**
+     * Returns a new list of the nodes in the subtree rooted at a
+     * node, in inorder.
+     *
+     * @param x Root of the subtree.
+     */
     protected ArrayList<Node> convertToArray(Node x)
     {
-        if (x != nil) {
-            convertToArray(x.left);
-            arrayList.add(x);
-            convertToArray(x.right);
-        }
-        return arrayList;
+        final ArrayList<Node> list = new ArrayList<Node>();
+        walk(x, INORDER, new Visitor() {
+            @SuppressWarnings("unchecked")
+            public Object visit(Object handle) {
+                list.add((Node) handle);
+                return null;
+            }
+        });
+        return list;
     }
 
     /**
@@ -222,7 +262,7 @@ public class BinaryTree<E> {
      */
     public void preorderWalk(Visitor visitor)
     {
-        preorderWalk(root, visitor);
+        walk(root, PREORDER, visitor);
     }
 
     /**
@@ -236,11 +276,7 @@ public class BinaryTree<E> {
      */
     protected void preorderWalk(Node x, Visitor visitor)
     {
-        if (x != nil) {
-            System.out.print(visitor.visit(x) + " ");
-            preorderWalk(x.left, visitor);
-            preorderWalk(x.right, visitor);
-        }
+        walk(x, PREORDER, visitor);
     }
 
     /**
@@ -252,7 +288,7 @@ public class BinaryTree<E> {
      */
     public void postorderWalk(Visitor visitor)
     {
-        postorderWalk(root, visitor);
+        walk(root, POSTORDER, visitor);
     }
 
     /**
@@ -266,10 +302,68 @@ public class BinaryTree<E> {
      */
     protected void postorderWalk(Node x, Visitor visitor)
     {
-        if (x != nil) {
-            postorderWalk(x.left, visitor);
-            postorderWalk(x.right, visitor);
-            System.out.print(visitor.visit(x) + " ");
+        walk(x, POSTORDER, visitor);
+    }
+
+    /**
+     * Walks the subtree rooted at a node without recursion or an
+     * explicit stack, following the parent pointers back up, and
+     * applies a <code>Visitor</code> to each node in the given order.
+     * Each node is reached at most three times: from its parent, from
+     * its left child and from its right child, and the node just left
+     * tells which.  The walk allocates nothing, so its cost does not
+     * depend on the shape of the tree, and the visitor's return value
+     * is ignored.  The visitor must not change the tree.
+     *
+     * @param top Root of the subtree.
+     * @param order <code>PREORDER</code>, <code>INORDER</code> or
+     * <code>POSTORDER</code>.
+     * @param visitor Object implementing <code>Visitor</code> whose
+     * <code>visit</code> method is applied to each node in the
+     * subtree.
+     */
+    protected void walk(Node top, int order, Visitor visitor)
+    {
+        if (top == nil)
+            return;
+
+        Node prev = null;       // never equal to a child, even nil
+        Node x = top;
+
+        while (true) {
+            Node next = null;   // null: go back up
+
+            if (prev != x.left && prev != x.right) {
+                // Reached x from its parent.
+                if (order == PREORDER)
+                    visitor.visit(x);
+                if (x.left != nil)
+                    next = x.left;
+                else {
+                    if (order == INORDER)
+                        visitor.visit(x);
+                    if (x.right != nil)
+                        next = x.right;
+                }
+            }
+            else if (prev == x.left) {
+                if (order == INORDER)
+                    visitor.visit(x);
+                if (x.right != nil)
+                    next = x.right;
+            }
+
+            if (next == null) {
+                // Both subtrees of x are done.
+                if (order == POSTORDER)
+                    visitor.visit(x);
+                if (x == top)
+                    return;
+                next = x.parent;
+            }
+
+            prev = x;
+            x = next;
         }
     }
 
@@ -285,8 +379,8 @@ public class BinaryTree<E> {
     }
 
     /**
-     * Searches the tree for a node with a given key.  Works
-     * recursively.
+     * Searches the tree for a node with a given key, using the hash
+     * index in expected constant time.
      *
      * @param k The key being searched for.
      * @return A reference to a <code>Node</code> object with key
@@ -300,34 +394,87 @@ public class BinaryTree<E> {
         return search(root, k);
     }
 
+    /**
+     * Searches the subtree rooted at a given node for a node with a
+     * given key.  Candidates come from the hash index, and only those
+     * lying in the subtree are accepted.
+     *
+     * @param x Root of the subtree.
+     * @param k The key being searched for.
+     * @return A reference to a <code>Node</code> object with key
+     * <code>k</code> if such a node exists, or a reference to the
+     * sentinel <code>nil</code> if no node has key <code>k</code>.
+     */
     protected Node search(Node x, Comparable k)
     {
-        Node result = nil;
-        convertToArray(x);
-       for (int i = 0; i < arrayList.size(); i++){
-           if (k.compareTo(arrayList.get(i).data) == 0){
-               result = arrayList.get(i);
-           }
-       }
-
-        return result;
+        ArrayList<Node> nodes = index == null ? null : index.get(k);
+
+        if (nodes != null && x != nil) {
+            for (int i = 0; i < nodes.size(); i++) {
+                Node y = nodes.get(i);
+                if (x == root || isInSubtree(x, y))
+                    return y;
+            }
+        }
+
+        return nil;
     }
 
+    /**
+     * Returns <code>true</code> if node <code>y</code> lies in the
+     * subtree rooted at node <code>x</code>.
+     */
+    private boolean isInSubtree(Node x, Node y)
+    {
+        while (y != nil && y != x)
+            y = y.parent;
+
+        return y == x;
+    }
+
+    /**
+     * Inserts data into the tree at a random leaf position, creating
+     * a new node for this data and adding it to the index.
+     *
+     * @param data Data to be inserted into the tree.
+     * @return A reference to the <code>Node</code> object created.
+     * The <code>Node</code> class is opaque to methods outside this
+     * class.
+     */
     public Object insert(Comparable data)
     {
+        if (index == null) {
+            index = new HashMap<Comparable, ArrayList<Node>>();
+            random = new Random();
+        }
+
         Node z = new Node(data);
         treeInsert(z);
 
+        ArrayList<Node> nodes = index.get(data);
+        if (nodes == null) {
+            nodes = new ArrayList<Node>(1);
+            index.put(data, nodes);
+        }
+        nodes.add(z);
+
         return z;
     }
 
+    /**
+     * Inserts a node at the end of a random path from the root.  A
+     * fresh direction is drawn at every level, so the expected depth
+     * stays logarithmic rather than growing one long spine.
+     *
+     * @param z The node to insert.
+     */
     private void treeInsert(Node z) {
         Node y = nil;
         Node x = root;
-        Random random = new Random();
-        boolean bool = random.nextBoolean();
+        boolean bool = false;
         while (x != nil) {
             y = x;
+            bool = random.nextBoolean();
             if (bool) {
                 x = x.left;
             }
@@ -353,21 +500,63 @@ public class BinaryTree<E> {
         return node;
     }
 
+    /**
+     * Removes a node from the tree and from the index.  A node with
+     * two children is replaced by a leaf taken from its subtree, so
+     * neither subtree is lost.
+     *
+     * @param node The node to be removed.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>nil</code>.
+     * @throws ClassCastException if <code>node</code> does not
+     * reference a <code>Node</code> object.
+     */
     public void delete(Object node) {
         Node z = (Node) node;
-        Node y = nil;
-        if (z.left != nil) {
-            z.left.parent = z.parent.parent;
-            y = z.left;
-        }else if (z.right != nil){
-            z.right.parent = z.parent.parent;
-            y = z.right;
+
+        if (z == nil)
+            throw new DeleteSentinelException();
+
+        Node x;         // Replaces z as the subtree's root
+
+        if (z.left == nil) {
+            x = z.right;
+        }else if (z.right == nil) {
+            x = z.left;
+        }else {
+            // Detach a leaf below z and put it in z's place.
+            x = z.left;
+            while (x.left != nil || x.right != nil)
+                x = (x.left != nil) ? x.left : x.right;
+
+            if (x == x.parent.left)
+                x.parent.left = nil;
+            else
+                x.parent.right = nil;
+
+            x.left = z.left;
+            x.right = z.right;
+            if (x.left != nil)
+                x.left.parent = x;
+            x.right.parent = x;
+        }
+
+        if (x != nil)
+            x.parent = z.parent;
+
+        if (root == z) {
+            root = x;
+        }else if (z == z.parent.left) {
+            z.parent.left = x;
+        }else {
+            z.parent.right = x;
         }
 
-        if (z.parent.left == z){
-            z.parent.left = y;
-        }else if (z.parent.right == z){
-            z.parent.right = y;
+        ArrayList<Node> nodes = index == null ? null : index.get(z.data);
+        if (nodes != null) {
+            nodes.remove(z);
+            if (nodes.isEmpty())
+                index.remove(z.data);
         }
     }
 }
@@ -0,0 +1,360 @@
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread-safe <code>AVLTree</code> whose reads do not block.  Writers
+ * take an exclusive lock and update the tree in place, rotations
+ * included.  Readers first walk the tree without any lock under an
+ * optimistic stamp and keep the result only if no writer ran
+ * meanwhile; otherwise, or if the walk runs into a half-finished
+ * update, they repeat the walk under a shared lock.  Readers never
+ * write to shared memory on the optimistic path, so search throughput
+ * grows with the number of cores.
+ *
+ * <p>
+ *
+ * Nodes cannot be handed out safely once the lock is released, so
+ * this class works on keys: lookups return the key stored in the tree
+ * (which compares equal to the one asked for) or <code>null</code>.
+ */
+public class ConcurrentAVLTree<E> {
+    /**
+     * Most steps an optimistic walk takes towards one key before it
+     * gives up and retries under the lock.  Far above the height of
+     * any AVL tree that fits in memory, so it is reached only when a
+     * concurrent update has sent the walk round a cycle.
+     */
+    private static final int MAX_DESCENT = 128;
+
+    /** Result of an optimistic walk that must be retried. */
+    private static final Object RETRY = new Object();
+
+    private static final int SEARCH = 0, HIGHER = 1, LOWER = 2, MINIMUM = 3, MAXIMUM = 4;
+
+    private final AVLTree<E> tree;
+
+    private final StampedLock lock;
+
+    /**
+     * Creates an empty tree.
+     */
+    public ConcurrentAVLTree()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates an empty tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public ConcurrentAVLTree(Comparator<? super E> comparator)
+    {
+        tree = new AVLTree<E>(comparator);
+        lock = new StampedLock();
+    }
+
+    /**
+     * Inserts a key into the tree.
+     *
+     * @param k The key to insert.
+     */
+    public void insert(Comparable k)
+    {
+        long stamp = lock.writeLock();
+        try {
+            tree.insert(k);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts a batch of keys under one acquisition of the lock.
+     *
+     * @param keys The keys to insert.
+     */
+    public void insertAll(Collection<? extends Comparable> keys)
+    {
+        long stamp = lock.writeLock();
+        try {
+            tree.insertAll(keys);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Deletes one occurrence of a key from the tree.
+     *
+     * @param k The key to delete.
+     * @return <code>true</code> if the key was in the tree.
+     */
+    public boolean delete(Comparable k)
+    {
+        long stamp = lock.writeLock();
+        try {
+            BinaryTree<E>.Node x = tree.search(k);
+            if (tree.isNil(x))
+                return false;
+            tree.delete(x);
+            return true;
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Deletes one occurrence of each key of a batch under one
+     * acquisition of the lock.
+     *
+     * @param keys The keys to delete.
+     */
+    public void deleteAll(Collection<? extends Comparable> keys)
+    {
+        long stamp = lock.writeLock();
+        try {
+            tree.deleteAll(keys);
+        }
+        finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     */
+    public int size()
+    {
+        long stamp = lock.tryOptimisticRead();
+        int size = tree.size();
+        if (lock.validate(stamp))
+            return size;
+
+        stamp = lock.readLock();
+        try {
+            return tree.size();
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the key in the tree equal to <code>k</code>, or
+     * <code>null</code> if there is none.
+     */
+    public E search(Comparable k)
+    {
+        return read(SEARCH, k);
+    }
+
+    /**
+     * Returns the least key in the tree greater than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    public E successor(Comparable k)
+    {
+        return read(HIGHER, k);
+    }
+
+    /**
+     * Returns the greatest key in the tree less than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    public E predecessor(Comparable k)
+    {
+        return read(LOWER, k);
+    }
+
+    /**
+     * Returns the least key in the tree, or <code>null</code> if the
+     * tree is empty.
+     */
+    public E minimum()
+    {
+        return read(MINIMUM, null);
+    }
+
+    /**
+     * Returns the greatest key in the tree, or <code>null</code> if
+     * the tree is empty.
+     */
+    public E maximum()
+    {
+        return read(MAXIMUM, null);
+    }
+
+    /**
+     * Runs a single-key read optimistically, falling back to the
+     * shared lock.
+     */
+    @SuppressWarnings("unchecked")
+    private E read(int op, Comparable k)
+    {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Object result = walk(op, k, MAX_DESCENT);
+                if (lock.validate(stamp) && result != RETRY)
+                    return (E) result;
+            }
+            catch (RuntimeException e) {
+                // A torn read of a node being updated; retry under the lock.
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return (E) walk(op, k, Integer.MAX_VALUE);
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Walks down from the root for one single-key read, reading only
+     * the <code>left</code>, <code>right</code> and <code>data</code>
+     * fields.
+     *
+     * @param op The read to perform.
+     * @param k The key asked about; unused for the minimum and
+     * maximum.
+     * @param steps Most nodes to visit before giving up.
+     * @return The key found, <code>null</code> if there is none, or
+     * <code>RETRY</code> if the walk gave up.
+     */
+    private Object walk(int op, Comparable k, int steps)
+    {
+        BinaryTree<E>.Node nil = tree.nil;
+        BinaryTree<E>.Node x = tree.root;
+        Object best = null;
+        int c;
+
+        for (; x != nil; steps--) {
+            if (steps == 0)
+                return RETRY;
+
+            Comparable data = x.data;
+            switch (op) {
+            case SEARCH:
+                if ((c = tree.compare(k, data)) == 0)
+                    return data;
+                x = c < 0 ? x.left : x.right;
+                break;
+            case HIGHER:
+                if (tree.compare(k, data) < 0) {
+                    best = data;
+                    x = x.left;
+                }
+                else
+                    x = x.right;
+                break;
+            case LOWER:
+                if (tree.compare(k, data) > 0) {
+                    best = data;
+                    x = x.right;
+                }
+                else
+                    x = x.left;
+                break;
+            case MINIMUM:
+                best = data;
+                x = x.left;
+                break;
+            default:
+                best = data;
+                x = x.right;
+                break;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns the keys <code>k</code> in the tree with <code>lo &lt;= k
+     * &lt;= hi</code>, in ascending order.  The keys are gathered
+     * optimistically when no writer interferes, and under the shared
+     * lock otherwise.
+     *
+     * @param lo Lower bound, inclusive.
+     * @param hi Upper bound, inclusive.
+     */
+    public List<E> range(Comparable lo, Comparable hi)
+    {
+        List<E> result = new ArrayList<E>();
+
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int steps = 4 * MAX_DESCENT + 2 * tree.size();
+                if (collect(lo, hi, result, steps) && lock.validate(stamp))
+                    return result;
+            }
+            catch (RuntimeException e) {
+                // A torn read of a node being updated; retry under the lock.
+            }
+            result.clear();
+        }
+
+        stamp = lock.readLock();
+        try {
+            collect(lo, hi, result, Integer.MAX_VALUE);
+            return result;
+        }
+        finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds the keys between two bounds to a list by an inorder walk
+     * that skips subtrees outside the bounds.  Uses an explicit stack
+     * rather than parent pointers, which rotations rewrite.
+     *
+     * @return <code>false</code> if the walk gave up after
+     * <code>steps</code> nodes.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean collect(Comparable lo, Comparable hi, List<E> result, int steps)
+    {
+        BinaryTree<E>.Node nil = tree.nil;
+        ArrayList<BinaryTree<E>.Node> stack = new ArrayList<BinaryTree<E>.Node>();
+        BinaryTree<E>.Node x = tree.root;
+
+        while (x != nil || !stack.isEmpty()) {
+            if (steps-- == 0 || stack.size() > MAX_DESCENT)
+                return false;
+
+            if (x != nil) {
+                if (tree.compare(lo, x.data) <= 0) {
+                    stack.add(x);
+                    x = x.left;
+                }
+                else
+                    x = x.right;
+            }
+            else {
+                x = stack.remove(stack.size() - 1);
+                if (tree.compare(hi, x.data) < 0)
+                    return true;
+                result.add((E) x.data);
+                x = x.right;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,411 @@
+package com.company;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe <code>BinarySearchTree</code> whose writers run in
+ * parallel.  Every node has its own lock, and operations walk down
+ * from the root by lock coupling: the lock on a child is taken before
+ * the lock on its parent is released.  Updates to disjoint parts of
+ * the tree therefore proceed at the same time, and no thread can ever
+ * reach a node that another thread is unlinking.
+ *
+ * <p>
+ *
+ * <code>insert</code>, <code>search</code>,
+ * <code>iterativeSearch</code>, <code>remove</code>,
+ * <code>delete</code>, <code>size</code>, <code>iterator</code> and
+ * <code>spliterator</code> may be called concurrently.  The other
+ * inherited methods (walks, ranges, <code>minimum</code>,
+ * <code>successor</code> and so on) read the tree without locks and
+ * are only safe while no update is running.
+ *
+ * <p>
+ *
+ * A node keeps its key for as long as it is in the tree: deleting a
+ * node with two children relinks its successor's node into its
+ * place, as <code>BinarySearchTree</code> does, so a node returned by
+ * <code>insert</code> or <code>search</code> stays a valid handle
+ * until it is deleted.
+ */
+public class ConcurrentBinarySearchTree<E> extends BinarySearchTree<E> {
+    /** Guards <code>root</code>; acts as the lock of the root's parent. */
+    private final ReentrantLock rootLock;
+
+    /**
+     * Number of nodes, kept apart from the inherited
+     * <code>count</code> so that writers do not contend on it.
+     */
+    private final LongAdder nodes;
+
+    /**
+     * Node of a <code>ConcurrentBinarySearchTree</code>, carrying its
+     * own lock.
+     */
+    protected class LockNode extends Node
+    {
+        /** Guards the fields of this node. */
+        protected final ReentrantLock lock;
+
+        /** Set, under the locks of the node and its parent, once it is unlinked. */
+        protected volatile boolean removed;
+
+        /**
+         * Initializes a node with the data and makes other pointers
+         * nil.
+         *
+         * @param data Data to save in the node.
+         */
+        public LockNode(Comparable<? extends E> data)
+        {
+            super(data);
+            lock = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Creates an empty tree.
+     */
+    public ConcurrentBinarySearchTree()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates an empty tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public ConcurrentBinarySearchTree(Comparator<? super E> comparator)
+    {
+        super(comparator);
+        rootLock = new ReentrantLock();
+        nodes = new LongAdder();
+    }
+
+    /**
+     * Returns the number of nodes in the tree; exact only while no
+     * update is running.
+     */
+    public int size()
+    {
+        return (int) nodes.sum();
+    }
+
+    private void lock(Node x)
+    {
+        ((LockNode) x).lock.lock();
+    }
+
+    private void unlock(Node x)
+    {
+        ((LockNode) x).lock.unlock();
+    }
+
+    /**
+     * Releases the lock on a parent, which is the root lock when the
+     * parent is <code>nil</code>.
+     */
+    private void unlockParent(Node p)
+    {
+        if (p == nil)
+            rootLock.unlock();
+        else
+            unlock(p);
+    }
+
+    /**
+     * Inserts data into the tree, creating a new node for this data.
+     * As in <code>treeInsert</code>, equal keys go to the left.
+     *
+     * @param data Data to be inserted into the tree.
+     * @return A reference to the <code>Node</code> object created.
+     */
+    public Object insert(Comparable data)
+    {
+        Node z = new LockNode(data);
+        nodes.increment();
+        chooseOrder(data);      // racy, but every order compares correctly
+
+        rootLock.lock();
+        Node x = root;
+        if (x == nil) {
+            root = z;           // the tree had been empty
+            rootLock.unlock();
+            return z;
+        }
+        lock(x);
+        rootLock.unlock();
+
+        while (true) {
+            boolean toLeft = compare(data, x.data) <= 0;
+            Node next = toLeft ? x.left : x.right;
+            if (next == nil) {
+                z.parent = x;
+                if (toLeft)
+                    x.left = z;
+                else
+                    x.right = z;
+                unlock(x);
+                return z;
+            }
+            lock(next);
+            unlock(x);
+            x = next;
+        }
+    }
+
+    /**
+     * Searches the tree for a node with a given key.
+     *
+     * @param k The key being searched for.
+     * @return A node with key <code>k</code>, which another thread
+     * may since have removed, or the sentinel <code>nil</code>.
+     */
+    public Node search(Comparable k)
+    {
+        rootLock.lock();
+        Node x = root;
+        if (x == nil) {
+            rootLock.unlock();
+            return nil;
+        }
+        lock(x);
+        rootLock.unlock();
+
+        while (true) {
+            int c = compare(k, x.data);
+            Node next = c == 0 ? x : c < 0 ? x.left : x.right;
+            if (next == x || next == nil) {
+                unlock(x);
+                return next;
+            }
+            lock(next);
+            unlock(x);
+            x = next;
+        }
+    }
+
+    /**
+     * Same as <code>search</code>, which is already iterative.
+     */
+    public Node iterativeSearch(Comparable<Comparable> k)
+    {
+        return search(k);
+    }
+
+    /**
+     * Removes one node holding a given key.
+     *
+     * @param k The key to remove.
+     * @return <code>true</code> if a node held <code>k</code>.
+     */
+    public boolean remove(Comparable k)
+    {
+        rootLock.lock();
+        Node p = nil;
+        Node z = root;
+        if (z == nil) {
+            rootLock.unlock();
+            return false;
+        }
+        lock(z);
+
+        // Find z, holding the locks of z and its parent.
+        int c;
+        while ((c = compare(k, z.data)) != 0) {
+            Node next = c < 0 ? z.left : z.right;
+            if (next == nil) {
+                unlock(z);
+                unlockParent(p);
+                return false;
+            }
+            lock(next);
+            unlockParent(p);
+            p = z;
+            z = next;
+        }
+
+        unlink(p, z);
+        return true;
+    }
+
+    /**
+     * Removes a node from the tree.  Its parent is locked first and
+     * then the node, in the same top-down order as every other
+     * operation; if the node moved meanwhile, because its parent was
+     * removed or it was the successor of a removed node, the parent
+     * is read again.
+     *
+     * @param node The node to be removed.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>nil</code>.
+     * @throws IllegalArgumentException if the node has already been
+     * removed, by this or another thread.
+     */
+    public void delete(Object node)
+    {
+        LockNode z = (LockNode) node;
+        if (z == nil)
+            throw new DeleteSentinelException();
+
+        while (true) {
+            Node p = z.parent;
+            if (p == nil)
+                rootLock.lock();
+            else
+                lock(p);
+
+            if (z.removed) {
+                unlockParent(p);
+                throw new IllegalArgumentException("node already removed");
+            }
+            // A removed parent keeps its old child pointers, so it
+            // must be ruled out before they are trusted.
+            if (p == nil ? root == z
+                    : !((LockNode) p).removed && (p.left == z || p.right == z)) {
+                lock(z);
+                unlink(p, z);
+                return;
+            }
+            unlockParent(p);
+        }
+    }
+
+    /**
+     * Unlinks a node, holding its lock and its parent's, and releases
+     * both.  A node with two children is replaced by its successor's
+     * node: the walk to the successor couples down the right subtree
+     * with both locks still held, so no other thread can be in that
+     * subtree or waiting on the node, and the successor is then
+     * relinked into the node's place as <code>unlink</code> in
+     * <code>BinarySearchTree</code> does.  No key moves between
+     * nodes.
+     *
+     * @param p Parent of <code>z</code>, or <code>nil</code> for the
+     * root, whose lock stands for the root lock.
+     * @param z The node to unlink.
+     */
+    private void unlink(Node p, Node z)
+    {
+        Node x;                 // replaces z as the child of p
+
+        if (z.left == nil || z.right == nil) {
+            x = z.left != nil ? z.left : z.right;
+            link(p, z, x);
+        }
+        else {
+            // Couple down to the successor x, keeping p and z locked.
+            Node xp = z;
+            x = z.right;
+            lock(x);
+            while (x.left != nil) {
+                Node next = x.left;
+                lock(next);
+                if (xp != z)
+                    unlock(xp);
+                xp = x;
+                x = next;
+            }
+
+            // Free x from its position, then put it in z's.
+            if (xp != z) {
+                xp.left = x.right;
+                if (x.right != nil)
+                    x.right.parent = xp;
+                x.right = z.right;
+                x.right.parent = x;
+                unlock(xp);
+            }
+            x.left = z.left;
+            x.left.parent = x;
+            link(p, z, x);
+            unlock(x);
+        }
+
+        ((LockNode) z).removed = true;
+        unlock(z);
+        unlockParent(p);
+        nodes.decrement();
+    }
+
+    /** Makes <code>x</code> the child of <code>p</code> in place of <code>z</code>. */
+    private void link(Node p, Node z, Node x)
+    {
+        if (x != nil)
+            x.parent = p;
+        if (p == nil)
+            root = x;
+        else if (z == p.left)
+            p.left = x;
+        else
+            p.right = x;
+    }
+
+    /**
+     * Returns an iterator over a copy of the keys, in order, taken by
+     * <code>keys</code>.  It does not support <code>remove</code>.
+     */
+    public Iterator<E> iterator()
+    {
+        return Collections.unmodifiableList(keys()).iterator();
+    }
+
+    /**
+     * Returns a <code>Spliterator</code> over a copy of the keys, in
+     * order, taken by <code>keys</code>.
+     */
+    public Spliterator<E> spliterator()
+    {
+        return keys().spliterator();
+    }
+
+    /**
+     * Copies the keys in order, walking the tree by lock coupling
+     * while updates go on.  The walk holds the locks of the nodes
+     * whose left subtrees it is in, which no update can unlink or
+     * give a new key, and releases a node only after locking its
+     * right child.  Every key that is in the tree throughout the walk
+     * is copied once; a key inserted or removed during the walk may
+     * or may not be.
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayList<E> keys()
+    {
+        ArrayList<E> keys = new ArrayList<E>();
+        ArrayDeque<Node> path = new ArrayDeque<Node>();     // locked, left subtree pending
+
+        rootLock.lock();
+        Node x = root;
+        if (x != nil)
+            lock(x);
+        rootLock.unlock();
+
+        while (x != nil || !path.isEmpty()) {
+            while (x != nil) {
+                path.push(x);
+                x = x.left;
+                if (x != nil)
+                    lock(x);
+            }
+            x = path.pop();
+            keys.add((E) x.data);
+            Node next = x.right;
+            if (next != nil)
+                lock(next);
+            unlock(x);
+            x = next;
+        }
+
+        return keys;
+    }
+}
@@ -0,0 +1,316 @@
+package com.company;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, read-only copy of the keys of a
+ * <code>BinarySearchTree</code>, made by <code>freeze</code>, laid out
+ * in one array in Eytzinger order: the root at index 1 and the
+ * children of the key at index <code>i</code> at <code>2i</code> and
+ * <code>2i + 1</code>, as in a binary heap.
+ *
+ * <p>
+ *
+ * A search is then a loop of index arithmetic with no pointers to
+ * follow.  The first levels share a handful of cache lines that stay
+ * hot, and the keys four levels below any node lie next to each
+ * other.  When every key is an <code>Integer</code> in natural order,
+ * the keys are also kept unboxed in an <code>int</code> array, so
+ * that a search reads no key objects, and each step picks a child
+ * by adding the result of one comparison to the index, with no
+ * branch to predict.
+ *
+ * <p>
+ *
+ * A frozen tree keeps repeated keys, as the tree it was made from
+ * does.  <code>thaw</code> turns it back into an <code>AVLTree</code>
+ * that can be changed.
+ */
+public class FrozenTree<E> implements Iterable<E> {
+    /** Keys in Eytzinger order, from index 1. */
+    private final Comparable[] keys;
+
+    /** The same keys unboxed, or <code>null</code> unless all are <code>Integer</code>s in natural order. */
+    private final int[] ints;
+
+    private final Comparator comparator;
+
+    /** Number of keys. */
+    private final int n;
+
+    /**
+     * Creates a frozen tree of keys given in sorted order.
+     *
+     * @param sorted The keys, sorted by <code>comparator</code>.
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    FrozenTree(Comparable[] sorted, Comparator<? super E> comparator)
+    {
+        this.comparator = comparator;
+        n = sorted.length;
+        keys = new Comparable[n + 1];
+        fill(sorted, 0, 1);
+
+        boolean unboxed = comparator == null;
+        for (int i = 0; unboxed && i < n; i++)
+            unboxed = sorted[i] instanceof Integer;
+
+        if (unboxed) {
+            ints = new int[n + 1];
+            for (int i = 1; i <= n; i++)
+                ints[i] = (Integer) keys[i];
+        }
+        else
+            ints = null;
+    }
+
+    /**
+     * Stores sorted keys, from index <code>next</code> on, into the
+     * subtree rooted at index <code>i</code> in inorder, and returns
+     * the index of the first key not stored.
+     */
+    private int fill(Comparable[] sorted, int next, int i)
+    {
+        if (i > n)
+            return next;
+
+        next = fill(sorted, next, 2 * i);
+        keys[i] = sorted[next++];
+        return fill(sorted, next, 2 * i + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Comparable a, Comparable b)
+    {
+        return comparator == null ? a.compareTo(b) : comparator.compare(a, b);
+    }
+
+    /**
+     * Returns the index of the first key, in order, greater than or
+     * equal to <code>k</code>, or greater than it if
+     * <code>strict</code>, or 0 if there is none.  The descent goes
+     * right after every key that is too small and left otherwise;
+     * the answer is the last node where it went left, found by
+     * undoing the right turns taken after it.
+     */
+    private int bound(Comparable k, boolean strict)
+    {
+        int i = 1;
+
+        if (ints != null && k instanceof Integer) {
+            int key = (Integer) k;
+            if (strict)
+                while (i <= n)
+                    i = 2 * i + (ints[i] <= key ? 1 : 0);
+            else
+                while (i <= n)
+                    i = 2 * i + (ints[i] < key ? 1 : 0);
+        }
+        else {
+            // A branch here lets the processor guess the next load
+            // while a slow comparison is still running.
+            int limit = strict ? 0 : -1;
+            while (i <= n) {
+                if (compare(keys[i], k) <= limit)
+                    i = 2 * i + 1;
+                else
+                    i = 2 * i;
+            }
+        }
+
+        return i >>> (Integer.numberOfTrailingZeros(~i) + 1);
+    }
+
+    /** Returns the index of the next key in order after index <code>i</code>, or 0. */
+    private int next(int i)
+    {
+        if (2 * i + 1 <= n) {
+            i = 2 * i + 1;
+            while (2 * i <= n)
+                i = 2 * i;
+            return i;
+        }
+
+        while ((i & 1) == 1)
+            i >>>= 1;
+        return i >>> 1;
+    }
+
+    /** Returns the index of the previous key in order before index <code>i</code>, or 0. */
+    private int prev(int i)
+    {
+        if (2 * i <= n) {
+            i = 2 * i;
+            while (2 * i + 1 <= n)
+                i = 2 * i + 1;
+            return i;
+        }
+
+        while ((i & 1) == 0)
+            i >>>= 1;
+        return i >>> 1;
+    }
+
+    /** Returns the index of the first key in order, or 0. */
+    private int first()
+    {
+        if (n == 0)
+            return 0;
+
+        int i = 1;
+        while (2 * i <= n)
+            i = 2 * i;
+        return i;
+    }
+
+    /** Returns the index of the last key in order, or 0. */
+    private int last()
+    {
+        if (n == 0)
+            return 0;
+
+        int i = 1;
+        while (2 * i + 1 <= n)
+            i = 2 * i + 1;
+        return i;
+    }
+
+    /** Returns the key at an index, or <code>null</code> for 0. */
+    @SuppressWarnings("unchecked")
+    private E key(int i)
+    {
+        return (E) keys[i];
+    }
+
+    /**
+     * Returns the number of keys.
+     */
+    public int size()
+    {
+        return n;
+    }
+
+    /**
+     * Returns a key equal to <code>k</code>, or <code>null</code> if
+     * there is none.
+     */
+    public E search(Comparable k)
+    {
+        int i = bound(k, false);
+        if (i == 0)
+            return null;
+        if (ints != null && k instanceof Integer)
+            return ints[i] == (Integer) k ? key(i) : null;
+        return compare(keys[i], k) == 0 ? key(i) : null;
+    }
+
+    /**
+     * Returns the least key greater than or equal to <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    public E ceiling(Comparable k)
+    {
+        return key(bound(k, false));
+    }
+
+    /**
+     * Returns the least key greater than <code>k</code>, or
+     * <code>null</code> if there is none.
+     */
+    public E higher(Comparable k)
+    {
+        return key(bound(k, true));
+    }
+
+    /**
+     * Returns the greatest key less than or equal to <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    public E floor(Comparable k)
+    {
+        int i = bound(k, true);
+        return key(i == 0 ? last() : prev(i));
+    }
+
+    /**
+     * Returns the greatest key less than <code>k</code>, or
+     * <code>null</code> if there is none.
+     */
+    public E lower(Comparable k)
+    {
+        int i = bound(k, false);
+        return key(i == 0 ? last() : prev(i));
+    }
+
+    /**
+     * Returns the least key, or <code>null</code> if there are none.
+     */
+    public E minimum()
+    {
+        return key(first());
+    }
+
+    /**
+     * Returns the greatest key, or <code>null</code> if there are
+     * none.
+     */
+    public E maximum()
+    {
+        return key(last());
+    }
+
+    /**
+     * Returns an iterator over the keys, in order.
+     */
+    public Iterator<E> iterator()
+    {
+        return new Iterator<E>() {
+            private int i = first();
+
+            public boolean hasNext() {
+                return i != 0;
+            }
+
+            public E next() {
+                if (i == 0)
+                    throw new NoSuchElementException();
+                E k = key(i);
+                i = FrozenTree.this.next(i);
+                return k;
+            }
+        };
+    }
+
+    /**
+     * Returns a new <code>AVLTree</code> holding the keys, built in
+     * balanced shape in linear time, ordered as this tree is.
+     */
+    @SuppressWarnings("unchecked")
+    public AVLTree<E> thaw()
+    {
+        Comparable[] sorted = new Comparable[n];
+        int j = 0;
+        for (int i = first(); i != 0; i = next(i))
+            sorted[j++] = keys[i];
+
+        return new AVLTree<E>(sorted, comparator);
+    }
+
+    /**
+     * Returns the keys in order, separated by spaces.
+     */
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        for (E k : this) {
+            if (result.length() > 0)
+                result.append(' ');
+            result.append(k);
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,396 @@
+package com.company;
+
+/**
+ * AVL tree whose nodes are identified by <code>int</code> indices
+ * rather than <code>Node</code> references.  Index <code>NIL</code>
+ * is the sentinel, and the indices of deleted nodes are kept on a
+ * free list for reuse.
+ *
+ * <p>
+ *
+ * This class holds the algorithms on the tree structure: allocation,
+ * linking, walking, deletion and rebalancing.  Subclasses store the
+ * fields of each node, reached through the accessors below, along
+ * with the keys, and implement the operations that compare keys.
+ * <code>PooledAVLTree</code> keeps the fields in parallel arrays and
+ * <code>OffHeapAVLTree</code> in records outside the heap.
+ */
+public abstract class IndexedAVLTree {
+    /** Index of the sentinel, replaces NIL in the textbook's code. */
+    public static final int NIL = 0;
+
+    /** Root of the tree. */
+    protected int root;
+
+    /** Head of the list of free nodes, linked through the right field. */
+    protected int free;
+
+    /** Lowest index that has never been allocated. */
+    protected int unused;
+
+    /** Number of nodes in the tree. */
+    protected int size;
+
+    /**
+     * Creates an empty tree.
+     */
+    protected IndexedAVLTree()
+    {
+        root = NIL;
+        free = NIL;
+        unused = NIL + 1;
+    }
+
+    /** Returns the left child of a node. */
+    protected abstract int left(int x);
+
+    /** Returns the right child of a node. */
+    protected abstract int right(int x);
+
+    /** Returns the parent of a node. */
+    protected abstract int parent(int x);
+
+    /** Returns the height of a node; the sentinel has height 0. */
+    protected abstract int height(int x);
+
+    protected abstract void setLeft(int x, int value);
+
+    protected abstract void setRight(int x, int value);
+
+    protected abstract void setParent(int x, int value);
+
+    protected abstract void setHeight(int x, int value);
+
+    /**
+     * Makes room for the fields of a node that has never been
+     * allocated, keeping those of the nodes already there.
+     *
+     * @param x Index of the node; every lower index already has room.
+     */
+    protected abstract void ensureCapacity(int x);
+
+    /**
+     * Returns the number of nodes in the tree.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns <code>true</code> if the given node is the sentinel
+     * <code>NIL</code>, <code>false</code> otherwise.
+     *
+     * @param node The node that is being asked about.
+     */
+    public boolean isNil(int node)
+    {
+        return node == NIL;
+    }
+
+    /**
+     * Allocates a node with no children, reusing a free index if
+     * there is one.  The caller stores its key and links it with
+     * <code>attach</code>.
+     *
+     * @return The index of the new node.
+     */
+    protected int newNode()
+    {
+        int z;
+
+        if (free != NIL) {
+            z = free;
+            free = right(z);
+        }
+        else {
+            ensureCapacity(unused);
+            z = unused++;
+        }
+
+        setLeft(z, NIL);
+        setRight(z, NIL);
+        setParent(z, NIL);
+        setHeight(z, 1);
+        size++;
+
+        return z;
+    }
+
+    /**
+     * Returns a deleted node to the free list.
+     *
+     * @param z The node being freed.
+     */
+    protected void release(int z)
+    {
+        setLeft(z, NIL);
+        setParent(z, NIL);
+        setRight(z, free);
+        free = z;
+        size--;
+    }
+
+    /**
+     * Links a new node below a given parent and rebalances the tree.
+     *
+     * @param z The new node.
+     * @param y Parent of <code>z</code>, or <code>NIL</code> if the
+     * tree is empty.
+     * @param asLeft <code>true</code> to make <code>z</code> the left
+     * child of <code>y</code>, <code>false</code> for the right.
+     */
+    protected void attach(int z, int y, boolean asLeft)
+    {
+        setParent(z, y);
+        if (y == NIL)
+            root = z;           // the tree had been empty
+        else if (asLeft)
+            setLeft(y, z);
+        else
+            setRight(y, z);
+
+        rebalance(y);
+    }
+
+    /**
+     * Returns the node with the minimum key in the tree, or
+     * <code>NIL</code> if the tree is empty.
+     */
+    public int minimum()
+    {
+        return root == NIL ? NIL : treeMinimum(root);
+    }
+
+    /**
+     * Returns the node with the minimum key in the subtree rooted at
+     * a node.
+     *
+     * @param x Root of the subtree; must not be <code>NIL</code>.
+     */
+    protected int treeMinimum(int x)
+    {
+        int l;
+        while ((l = left(x)) != NIL)
+            x = l;
+
+        return x;
+    }
+
+    /**
+     * Returns the node with the maximum key in the tree, or
+     * <code>NIL</code> if the tree is empty.
+     */
+    public int maximum()
+    {
+        return root == NIL ? NIL : treeMaximum(root);
+    }
+
+    /**
+     * Returns the node with the maximum key in the subtree rooted at
+     * a node.
+     *
+     * @param x Root of the subtree; must not be <code>NIL</code>.
+     */
+    protected int treeMaximum(int x)
+    {
+        int r;
+        while ((r = right(x)) != NIL)
+            x = r;
+
+        return x;
+    }
+
+    /**
+     * Returns the successor of a given node in an inorder walk of the
+     * tree, or <code>NIL</code> if it has none.  The sentinel, which
+     * need not have fields of its own while the tree is empty, has
+     * none.
+     *
+     * @param x The node whose successor is returned.
+     */
+    public int successor(int x)
+    {
+        if (x == NIL)
+            return NIL;
+        if (right(x) != NIL)
+            return treeMinimum(right(x));
+
+        int y = parent(x);
+        while (y != NIL && x == right(y)) {
+            x = y;
+            y = parent(y);
+        }
+
+        return y;
+    }
+
+    /**
+     * Returns the predecessor of a given node in an inorder walk of
+     * the tree, or <code>NIL</code> if it has none, as for the
+     * sentinel.
+     *
+     * @param x The node whose predecessor is returned.
+     */
+    public int predecessor(int x)
+    {
+        if (x == NIL)
+            return NIL;
+        if (left(x) != NIL)
+            return treeMaximum(left(x));
+
+        int y = parent(x);
+        while (y != NIL && x == left(y)) {
+            x = y;
+            y = parent(y);
+        }
+
+        return y;
+    }
+
+    /**
+     * Removes a node from the tree.  The node's index is freed and
+     * may be handed out again by a later insert; the indices of all
+     * other nodes stay valid.
+     *
+     * @param z The node to be removed.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>NIL</code>.
+     */
+    public void delete(int z)
+    {
+        if (z == NIL)
+            throw new DeleteSentinelException();
+
+        int lowest;             // lowest node whose subtree changed
+
+        if (left(z) == NIL || right(z) == NIL) {
+            lowest = parent(z);
+            transplant(z, left(z) != NIL ? left(z) : right(z));
+        }
+        else {
+            // Neither child is nil: move the successor into z's place.
+            int y = treeMinimum(right(z));
+            if (parent(y) == z)
+                lowest = y;
+            else {
+                lowest = parent(y);
+                transplant(y, right(y));
+                setRight(y, right(z));
+                setParent(right(y), y);
+            }
+            transplant(z, y);
+            setLeft(y, left(z));
+            setParent(left(y), y);
+            setHeight(y, height(z));
+        }
+
+        release(z);
+        rebalance(lowest);
+    }
+
+    /**
+     * Replaces the subtree rooted at <code>u</code> by the subtree
+     * rooted at <code>v</code> in <code>u</code>'s parent.
+     */
+    private void transplant(int u, int v)
+    {
+        int p = parent(u);
+
+        if (p == NIL)
+            root = v;
+        else if (u == left(p))
+            setLeft(p, v);
+        else
+            setRight(p, v);
+
+        if (v != NIL)
+            setParent(v, p);
+    }
+
+    /**
+     * Restores the AVL property on the path from a node to the root,
+     * stopping early once a subtree's height is unchanged.
+     *
+     * @param x The lowest node whose subtree changed.
+     */
+    protected void rebalance(int x)
+    {
+        while (x != NIL) {
+            int old = height(x);
+            int balance = height(left(x)) - height(right(x));
+
+            if (balance > 1) {
+                int l = left(x);
+                if (height(left(l)) < height(right(l)))
+                    leftRotate(l);
+                x = rightRotate(x);
+            }
+            else if (balance < -1) {
+                int r = right(x);
+                if (height(right(r)) < height(left(r)))
+                    rightRotate(r);
+                x = leftRotate(x);
+            }
+            else
+                updateHeight(x);
+
+            if (height(x) == old)
+                return;
+            x = parent(x);
+        }
+    }
+
+    /**
+     * Recomputes the height of a node from its children's, storing it
+     * only if it changed.
+     */
+    private void updateHeight(int x)
+    {
+        int h = Math.max(height(left(x)), height(right(x))) + 1;
+        if (h != height(x))
+            setHeight(x, h);
+    }
+
+    /**
+     * Rotates the subtree rooted at <code>x</code> to the right.
+     *
+     * @return The new root of the subtree.
+     */
+    private int rightRotate(int x)
+    {
+        int y = left(x);
+        int b = right(y);
+        setLeft(x, b);
+        if (b != NIL)
+            setParent(b, x);
+        transplant(x, y);
+        setRight(y, x);
+        setParent(x, y);
+        updateHeight(x);
+        updateHeight(y);
+
+        return y;
+    }
+
+    /**
+     * Rotates the subtree rooted at <code>x</code> to the left.
+     *
+     * @return The new root of the subtree.
+     */
+    private int leftRotate(int x)
+    {
+        int y = right(x);
+        int b = left(y);
+        setRight(x, b);
+        if (b != NIL)
+            setParent(b, x);
+        transplant(x, y);
+        setLeft(y, x);
+        setParent(x, y);
+        updateHeight(x);
+        updateHeight(y);
+
+        return y;
+    }
+}
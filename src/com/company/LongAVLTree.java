@@ -0,0 +1,87 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * AVL tree of primitive <code>long</code> keys.  Keys are stored
+ * unboxed in an array parallel to the node arrays of
+ * <code>PooledAVLTree</code> and compared with the raw operators, so
+ * no wrapper object is created per key or per comparison.
+ *
+ * <p>
+ *
+ * Nodes are identified by <code>int</code> indices, which play the
+ * role of the opaque <code>Node</code> references returned by
+ * <code>AVLTree</code>.  As in <code>BinarySearchTree</code>, equal
+ * keys are kept in separate nodes.
+ */
+public class LongAVLTree extends PooledAVLTree {
+    /** Key of each node. */
+    private long[] keys;
+
+    /**
+     * Creates an empty tree.
+     */
+    public LongAVLTree()
+    {
+        super();
+        keys = new long[left.length];
+    }
+
+    protected void resizeKeys(int capacity)
+    {
+        keys = Arrays.copyOf(keys, capacity);
+    }
+
+    /**
+     * Returns the key stored in a node.
+     *
+     * @param node The node whose key is returned.
+     */
+    public long key(int node)
+    {
+        return keys[node];
+    }
+
+    /**
+     * Searches the tree for a node with a given key.
+     *
+     * @param k The key being searched for.
+     * @return The node with key <code>k</code> if such a node
+     * exists, or <code>NIL</code> if no node has key <code>k</code>.
+     */
+    public int search(long k)
+    {
+        int x = root;
+
+        while (x != NIL && k != keys[x])
+            x = k < keys[x] ? left[x] : right[x];
+
+        return x;
+    }
+
+    /**
+     * Inserts a key into the tree, creating a new node for it.
+     *
+     * @param k The key to insert.
+     * @return The node created.
+     */
+    public int insert(long k)
+    {
+        int y = NIL;
+        int x = root;
+        boolean asLeft = true;
+
+        while (x != NIL) {
+            y = x;
+            asLeft = k <= keys[x];
+            x = asLeft ? left[x] : right[x];
+        }
+
+        int z = newNode();
+        keys[z] = k;
+        attach(z, y, asLeft);
+
+        return z;
+    }
+}
@@ -0,0 +1,424 @@
+package com.company;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * <code>OffHeapAVLTree</code> kept in a memory-mapped file, so that
+ * the tree survives a restart.  Opening an existing file maps it and
+ * serves searches at once, without reading or rebuilding any nodes.
+ *
+ * <p>
+ *
+ * The file is a header page followed by the chunks of node records.
+ * Chunks are mapped copy-on-write, so an update in progress never
+ * reaches the file.  When an insert or delete completes, the records
+ * it changed and the new header are written to a journal file next to
+ * the tree and forced to disk, then copied into the tree file, which
+ * is forced in turn, and the journal is emptied.  Opening a file
+ * replays a complete journal left by a crash and discards an
+ * incomplete one, so each update is either fully applied or not at
+ * all.  Pages written since the file was opened are private copies
+ * and count against process memory until the tree is reopened.
+ *
+ * <p>
+ *
+ * Those two forces dominate the cost of an update on most disks.
+ * Updates made between <code>beginBatch</code> and
+ * <code>commitBatch</code> are instead journaled and forced together
+ * when the batch is committed, which makes the whole batch durable
+ * at once: after a crash the tree holds all of its updates or none.
+ * Until then they are visible to searches but not on disk.
+ *
+ * <p>
+ *
+ * Every number in the file is stored little-endian, whatever the
+ * byte order of the machine, so that a file can be moved between
+ * machines.
+ */
+public class MappedAVLTree extends OffHeapAVLTree implements Closeable {
+    /** Size of the header that precedes the chunks in the file. */
+    private static final int HEADER_BYTES = 4096;
+
+    /** Bytes taken by root, free, unused, size and chunk count. */
+    private static final int HEADER_FIELDS = 20;
+
+    /** Bytes used by the header: a magic number and the fields. */
+    private static final int HEADER_USED = 8 + HEADER_FIELDS;
+
+    /** Bytes preceding the records in the journal. */
+    private static final int JOURNAL_HEAD = 12 + HEADER_FIELDS;
+
+    private static final long FILE_MAGIC = 0x41564C5452454531L;       // "AVLTREE1"
+
+    private static final long JOURNAL_MAGIC = 0x41564C4A524E4C31L;    // "AVLJRNL1"
+
+    private static final int CHUNK_BYTES = CHUNK_NODES * NODE_BYTES;
+
+    /** Initial length of <code>dirty</code>, enough for a single update. */
+    private static final int DIRTY_INITIAL = 64;
+
+    /** Byte order of the tree file and of the journal. */
+    private static final ByteOrder FILE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final RandomAccessFile journal;
+
+    /** Nodes changed since the last flush, in order of first change. */
+    private int[] dirty;
+
+    private int dirtyCount;
+
+    /**
+     * Open-addressed set of the nodes in <code>dirty</code>, holding
+     * index + 1 so that 0 marks an empty slot.
+     */
+    private int[] dirtySet;
+
+    /** Whether updates are being gathered into a batch. */
+    private boolean batching;
+
+    /**
+     * Opens the tree stored in a file, creating an empty tree if the
+     * file does not exist.
+     *
+     * @param path Name of the tree file.  The journal is kept in
+     * <code>path + ".journal"</code>.
+     * @throws IOException if the file cannot be opened or is not a
+     * tree file.
+     */
+    public MappedAVLTree(String path) throws IOException
+    {
+        super();
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        journal = new RandomAccessFile(path + ".journal", "rw");
+        dirty = new int[DIRTY_INITIAL];
+        dirtySet = new int[2 * DIRTY_INITIAL];
+
+        try {
+            recover();
+            if (file.length() == 0)
+                writeHeader(FILE_MAGIC);
+            readHeader();
+        }
+        catch (IOException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    /**
+     * Commits the batch in progress, if any, and releases the files.
+     * The mappings stay valid until they are collected, but the tree
+     * must not be used after it has been closed.
+     */
+    public void close() throws IOException
+    {
+        try {
+            if (batching)
+                commitBatch();
+        }
+        finally {
+            closeFiles();
+        }
+    }
+
+    private void closeFiles() throws IOException
+    {
+        try {
+            journal.close();
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Reads the header and maps the chunks it records.
+     */
+    private void readHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_USED).order(FILE_ORDER);
+        readFully(channel, header, 0);
+
+        if (header.getLong(0) != FILE_MAGIC)
+            throw new IOException("not a tree file");
+        root = header.getInt(8);
+        free = header.getInt(12);
+        unused = header.getInt(16);
+        size = header.getInt(20);
+        int count = header.getInt(24);
+
+        chunkCount = 0;
+        while (chunkCount < count)
+            addChunk();
+    }
+
+    /**
+     * Writes the header fields at the start of the tree file.
+     */
+    private void writeHeader(long magic) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_USED).order(FILE_ORDER);
+        header.putLong(0, magic);
+        putHeaderFields(header, 8);
+        writeFully(channel, header, 0);
+    }
+
+    private void putHeaderFields(ByteBuffer buffer, int offset)
+    {
+        buffer.putInt(offset, root);
+        buffer.putInt(offset + 4, free);
+        buffer.putInt(offset + 8, unused);
+        buffer.putInt(offset + 12, size);
+        buffer.putInt(offset + 16, chunkCount);
+    }
+
+    /**
+     * Maps a chunk of the file copy-on-write, extending the file if
+     * the chunk lies past its end.
+     */
+    protected ByteBuffer newChunk(int index)
+    {
+        long position = HEADER_BYTES + (long) index * CHUNK_BYTES;
+
+        try {
+            if (file.length() < position + CHUNK_BYTES)
+                file.setLength(position + CHUNK_BYTES);
+            return channel.map(FileChannel.MapMode.PRIVATE, position, CHUNK_BYTES)
+                .order(FILE_ORDER);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected void putInt(int x, int field, int value)
+    {
+        markDirty(x);
+        super.putInt(x, field, value);
+    }
+
+    protected void putLong(int x, int field, long value)
+    {
+        markDirty(x);
+        super.putLong(x, field, value);
+    }
+
+    /**
+     * Records that a node is changed by the update in progress.
+     */
+    private void markDirty(int x)
+    {
+        int mask = dirtySet.length - 1;
+        int i = (x * 0x9E3779B1) >>> 8 & mask;
+
+        while (dirtySet[i] != 0) {
+            if (dirtySet[i] == x + 1)
+                return;
+            i = (i + 1) & mask;
+        }
+
+        dirtySet[i] = x + 1;
+        if (dirtyCount == dirty.length)
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+        dirty[dirtyCount++] = x;
+
+        if (dirtyCount * 2 > dirtySet.length)
+            rehashDirty();
+    }
+
+    private void rehashDirty()
+    {
+        dirtySet = new int[dirtySet.length * 2];
+        int count = dirtyCount;
+        dirtyCount = 0;
+        for (int i = 0; i < count; i++)
+            markDirty(dirty[i]);
+    }
+
+    /**
+     * Starts gathering updates into a batch, which
+     * <code>commitBatch</code> makes durable as one.
+     *
+     * @throws IllegalStateException if a batch is already in progress.
+     */
+    public void beginBatch()
+    {
+        if (batching)
+            throw new IllegalStateException("batch already in progress");
+        batching = true;
+    }
+
+    /**
+     * Makes every update since <code>beginBatch</code> durable, with
+     * one journal write and two forces in all.
+     *
+     * @throws IllegalStateException if no batch is in progress.
+     * @throws UncheckedIOException if the records cannot be written;
+     * the batch is then over, and its updates may not survive a
+     * restart.
+     */
+    public void commitBatch()
+    {
+        if (!batching)
+            throw new IllegalStateException("no batch in progress");
+        batching = false;
+        flush();
+    }
+
+    /**
+     * Makes the update that has just completed durable, unless it is
+     * part of a batch, whose records wait for
+     * <code>commitBatch</code>.
+     */
+    protected void commit()
+    {
+        if (!batching)
+            flush();
+    }
+
+    /**
+     * Journals the changed records and the header, applies them to
+     * the tree file and empties the journal.
+     */
+    private void flush()
+    {
+        try {
+            ByteBuffer records = journalRecords();
+            journal.setLength(0);
+            writeFully(journal.getChannel(), records, 0);
+            journal.getChannel().force(false);
+
+            apply(records);
+            channel.force(false);
+
+            journal.setLength(0);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            if (dirty.length > DIRTY_INITIAL) {     // grown by a batch
+                dirty = new int[DIRTY_INITIAL];
+                dirtySet = new int[2 * DIRTY_INITIAL];
+            }
+            else
+                Arrays.fill(dirtySet, 0);
+            dirtyCount = 0;
+        }
+    }
+
+    /**
+     * Builds the journal for the updates not yet durable: a
+     * magic number, the record count, the new header fields, one
+     * (index, record) pair per changed node and a CRC-32 of all of
+     * it.
+     */
+    private ByteBuffer journalRecords()
+    {
+        int length = JOURNAL_HEAD + dirtyCount * (4 + NODE_BYTES) + 8;
+        ByteBuffer records = ByteBuffer.allocate(length).order(FILE_ORDER);
+
+        records.putLong(0, JOURNAL_MAGIC);
+        records.putInt(8, dirtyCount);
+        putHeaderFields(records, 12);
+
+        int offset = JOURNAL_HEAD;
+        for (int i = 0; i < dirtyCount; i++) {
+            int x = dirty[i];
+            ByteBuffer chunk = chunks[x >>> CHUNK_SHIFT];
+            int base = (x & CHUNK_MASK) * NODE_BYTES;
+            records.putInt(offset, x);
+            for (int b = 0; b < NODE_BYTES; b += 8)
+                records.putLong(offset + 4 + b, chunk.getLong(base + b));
+            offset += 4 + NODE_BYTES;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(records.array(), 0, offset);
+        records.putLong(offset, crc.getValue());
+
+        return records;
+    }
+
+    /**
+     * Copies the records and header of a journal into the tree file.
+     */
+    private void apply(ByteBuffer records) throws IOException
+    {
+        int count = records.getInt(8);
+        int offset = JOURNAL_HEAD;
+
+        for (int i = 0; i < count; i++) {
+            int x = records.getInt(offset);
+            ByteBuffer record = records.duplicate();
+            record.limit(offset + 4 + NODE_BYTES).position(offset + 4);
+            writeFully(channel, record, HEADER_BYTES + (long) x * NODE_BYTES);
+            offset += 4 + NODE_BYTES;
+        }
+
+        ByteBuffer header = records.duplicate();
+        header.limit(JOURNAL_HEAD).position(JOURNAL_HEAD - HEADER_FIELDS);
+        writeFully(channel, header, HEADER_USED - HEADER_FIELDS);
+    }
+
+    /**
+     * Replays the journal left by an interrupted update, or discards
+     * it if it was not completely written.
+     */
+    private void recover() throws IOException
+    {
+        long length = journal.length();
+        if (length == 0)
+            return;
+
+        ByteBuffer records = ByteBuffer.allocate((int) length).order(FILE_ORDER);
+        readFully(journal.getChannel(), records, 0);
+
+        if (length >= JOURNAL_HEAD + 8 && records.getLong(0) == JOURNAL_MAGIC) {
+            int count = records.getInt(8);
+            int end = JOURNAL_HEAD + count * (4 + NODE_BYTES);
+            if (count >= 0 && end + 8 == length) {
+                CRC32 crc = new CRC32();
+                crc.update(records.array(), 0, end);
+                if (crc.getValue() == records.getLong(end)) {
+                    if (file.length() == 0)
+                        writeHeader(FILE_MAGIC);
+                    apply(records);
+                    channel.force(false);
+                }
+            }
+        }
+
+        journal.setLength(0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException
+    {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("unexpected end of file");
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+        throws IOException
+    {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining())
+            channel.write(buffer, start + buffer.position());
+    }
+}
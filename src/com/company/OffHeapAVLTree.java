@@ -0,0 +1,238 @@
+package com.company;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * AVL tree of <code>long</code> keys whose nodes are stored outside
+ * the Java heap, in direct <code>ByteBuffer</code> chunks.  However
+ * many entries it holds, the tree is a handful of heap objects, so it
+ * adds nothing to the collector's marking work.
+ *
+ * <p>
+ *
+ * A node is a fixed 24-byte record (left, right, parent, height, key)
+ * identified by its <code>int</code> index, which plays the role of
+ * the opaque <code>Node</code> references returned by
+ * <code>AVLTree</code>.  Index <code>NIL</code> is the sentinel, and
+ * deleted records are kept on a free list for reuse.  Records are
+ * grouped into chunks of <code>CHUNK_NODES</code>; growing the tree
+ * adds a chunk and never copies existing ones.  As in
+ * <code>BinarySearchTree</code>, equal keys are kept in separate
+ * nodes.
+ *
+ * <p>
+ *
+ * All stores go through <code>putInt</code> and <code>putLong</code>,
+ * and every update ends with <code>commit</code>, so that subclasses
+ * can keep the records somewhere other than anonymous memory.
+ */
+public class OffHeapAVLTree extends IndexedAVLTree {
+    /** Size in bytes of a node record. */
+    protected static final int NODE_BYTES = 24;
+
+    /** Offsets of the fields within a node record. */
+    protected static final int LEFT = 0, RIGHT = 4, PARENT = 8, HEIGHT = 12, KEY = 16;
+
+    /** log2 of the number of nodes per chunk. */
+    protected static final int CHUNK_SHIFT = 16;
+
+    /** Number of nodes per chunk. */
+    protected static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+
+    /** Mask selecting a node's position within its chunk. */
+    protected static final int CHUNK_MASK = CHUNK_NODES - 1;
+
+    /** The chunks holding the node records; only a prefix is in use. */
+    protected ByteBuffer[] chunks;
+
+    /** Number of chunks allocated. */
+    protected int chunkCount;
+
+    /**
+     * Creates an empty tree holding its nodes in native memory.
+     */
+    public OffHeapAVLTree()
+    {
+        chunks = new ByteBuffer[8];
+        chunkCount = 0;
+    }
+
+    /**
+     * Creates a new, zeroed chunk in native memory.  Subclasses that
+     * keep the records elsewhere override this.
+     *
+     * @param index Index of the chunk among the tree's chunks.
+     */
+    protected ByteBuffer newChunk(int index)
+    {
+        return ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Appends a chunk to the tree.
+     */
+    protected void addChunk()
+    {
+        if (chunkCount == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        chunks[chunkCount] = newChunk(chunkCount);
+        chunkCount++;
+    }
+
+    /**
+     * Called at the end of every insert and delete, once the tree is
+     * consistent again.  Does nothing here.
+     */
+    protected void commit()
+    {
+    }
+
+    /**
+     * Stores an <code>int</code> field of a node.
+     *
+     * @param x The node.
+     * @param field Offset of the field within the record.
+     * @param value The value to store.
+     */
+    protected void putInt(int x, int field, int value)
+    {
+        chunks[x >>> CHUNK_SHIFT].putInt((x & CHUNK_MASK) * NODE_BYTES + field, value);
+    }
+
+    /**
+     * Stores a <code>long</code> field of a node.
+     *
+     * @param x The node.
+     * @param field Offset of the field within the record.
+     * @param value The value to store.
+     */
+    protected void putLong(int x, int field, long value)
+    {
+        chunks[x >>> CHUNK_SHIFT].putLong((x & CHUNK_MASK) * NODE_BYTES + field, value);
+    }
+
+    private int getInt(int x, int field)
+    {
+        return chunks[x >>> CHUNK_SHIFT].getInt((x & CHUNK_MASK) * NODE_BYTES + field);
+    }
+
+    protected final int left(int x)
+    {
+        return getInt(x, LEFT);
+    }
+
+    protected final int right(int x)
+    {
+        return getInt(x, RIGHT);
+    }
+
+    protected final int parent(int x)
+    {
+        return getInt(x, PARENT);
+    }
+
+    protected final int height(int x)
+    {
+        return getInt(x, HEIGHT);
+    }
+
+    protected final void setLeft(int x, int value)
+    {
+        putInt(x, LEFT, value);
+    }
+
+    protected final void setRight(int x, int value)
+    {
+        putInt(x, RIGHT, value);
+    }
+
+    protected final void setParent(int x, int value)
+    {
+        putInt(x, PARENT, value);
+    }
+
+    protected final void setHeight(int x, int value)
+    {
+        putInt(x, HEIGHT, value);
+    }
+
+    /**
+     * Adds chunks until one holds the record of a node.
+     */
+    protected void ensureCapacity(int x)
+    {
+        while (x >= chunkCount << CHUNK_SHIFT)
+            addChunk();
+    }
+
+    /**
+     * Returns the key stored in a node.
+     *
+     * @param x The node whose key is returned.
+     */
+    public long key(int x)
+    {
+        return chunks[x >>> CHUNK_SHIFT].getLong((x & CHUNK_MASK) * NODE_BYTES + KEY);
+    }
+
+    /**
+     * Searches the tree for a node with a given key.
+     *
+     * @param k The key being searched for.
+     * @return The node with key <code>k</code> if such a node
+     * exists, or <code>NIL</code> if no node has key <code>k</code>.
+     */
+    public int search(long k)
+    {
+        int x = root;
+        long key;
+
+        while (x != NIL && (key = key(x)) != k)
+            x = k < key ? left(x) : right(x);
+
+        return x;
+    }
+
+    /**
+     * Inserts a key into the tree, creating a new node for it.
+     *
+     * @param k The key to insert.
+     * @return The node created.
+     */
+    public int insert(long k)
+    {
+        int y = NIL;
+        int x = root;
+        boolean asLeft = true;
+
+        while (x != NIL) {
+            y = x;
+            asLeft = k <= key(x);
+            x = asLeft ? left(x) : right(x);
+        }
+
+        int z = newNode();
+        putLong(z, KEY, k);
+        attach(z, y, asLeft);
+        commit();
+
+        return z;
+    }
+
+    /**
+     * Removes a node from the tree.  The node's record is freed and
+     * may be handed out again by a later insert; the indices of all
+     * other nodes stay valid.
+     *
+     * @param z The node to be removed.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>NIL</code>.
+     */
+    public void delete(int z)
+    {
+        super.delete(z);
+        commit();
+    }
+}
@@ -0,0 +1,384 @@
+package com.company;
+
+import java.util.Comparator;
+
+/**
+ * AVL tree whose nodes are never modified once built.  An insert or
+ * delete copies only the nodes on the path from the root to the
+ * change, O(log n) of them, and shares every other subtree with the
+ * previous version; the new root is then published in a single
+ * volatile write.
+ *
+ * <p>
+ *
+ * Taking a snapshot is therefore O(1): <code>snapshot</code> returns
+ * a tree sharing the current root, which later updates to either tree
+ * never affect.  Reads load the root once and walk nodes that cannot
+ * change under them, so they take no lock and always see a consistent
+ * version, however many writers are running.  Updates to one tree
+ * are serialized.
+ *
+ * <p>
+ *
+ * As in <code>ConcurrentAVLTree</code>, the tree works on keys rather
+ * than on nodes.  As in <code>BinarySearchTree</code>, equal keys are
+ * kept in separate nodes, and keys are compared by a
+ * <code>Comparator</code> or in the way <code>compare</code> chooses
+ * for their natural order.
+ */
+public class PersistentAVLTree<E> {
+    /**
+     * Immutable node of a <code>PersistentAVLTree</code>.  Besides its
+     * height, each node records the number of nodes in its subtree.
+     */
+    protected static final class Node
+    {
+        protected final Comparable data;
+
+        protected final Node left;
+
+        protected final Node right;
+
+        protected final int height;
+
+        protected final int size;
+
+        private Node(Comparable data, Node left, Node right)
+        {
+            this.data = data;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(left.height, right.height) + 1;
+            this.size = left.size + right.size + 1;
+        }
+
+        /** Creates the sentinel. */
+        private Node()
+        {
+            data = null;
+            left = this;
+            right = this;
+            height = 0;
+            size = 0;
+        }
+    }
+
+    /** Sentinel shared by every tree, replaces NIL in the textbook's code. */
+    protected static final Node nil = new Node();
+
+    /** Current version of the tree. */
+    protected volatile Node root;
+
+    /** Orders the keys, or <code>null</code> for their natural order. */
+    private final Comparator comparator;
+
+    /**
+     * How keys are compared, as in <code>BinarySearchTree</code>.  Set
+     * before the first key's root is published, so a reader that sees
+     * a key sees it too.
+     */
+    private int order;
+
+    /**
+     * Creates an empty tree.
+     */
+    public PersistentAVLTree()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates an empty tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public PersistentAVLTree(Comparator<? super E> comparator)
+    {
+        this(nil, comparator, comparator == null ? BinarySearchTree.UNKNOWN : BinarySearchTree.COMPARATOR);
+    }
+
+    private PersistentAVLTree(Node root, Comparator comparator, int order)
+    {
+        this.root = root;
+        this.comparator = comparator;
+        this.order = order;
+    }
+
+    /**
+     * Returns the comparator ordering the keys, or <code>null</code>
+     * if they are in their natural order.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparator<? super E> comparator()
+    {
+        return comparator;
+    }
+
+    private int compare(Comparable a, Comparable b)
+    {
+        return BinarySearchTree.compare(order, comparator, a, b);
+    }
+
+    /**
+     * Returns a tree holding the current keys of this one, in O(1)
+     * time and space.  The two trees share their nodes but are
+     * independent: updating either does not change the other.
+     */
+    public PersistentAVLTree<E> snapshot()
+    {
+        Node x = root;          // before order, as the field comment says
+        return new PersistentAVLTree<E>(x, comparator, order);
+    }
+
+    /**
+     * Returns the number of keys in the tree.
+     */
+    public int size()
+    {
+        return root.size;
+    }
+
+    /**
+     * Inserts a key into the tree.
+     *
+     * @param k The key to insert.
+     */
+    public synchronized void insert(Comparable k)
+    {
+        if (order == BinarySearchTree.UNKNOWN)
+            order = BinarySearchTree.naturalOrder(k);
+        root = insert(root, k);
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at <code>x</code> with
+     * <code>k</code> inserted, sharing all subtrees off the path.
+     */
+    private Node insert(Node x, Comparable k)
+    {
+        if (x == nil)
+            return new Node(k, nil, nil);
+
+        if (compare(k, x.data) <= 0)
+            return balance(x.data, insert(x.left, k), x.right);
+        else
+            return balance(x.data, x.left, insert(x.right, k));
+    }
+
+    /**
+     * Deletes one occurrence of a key from the tree.
+     *
+     * @param k The key to delete.
+     * @return <code>true</code> if the key was in the tree.
+     */
+    public synchronized boolean delete(Comparable k)
+    {
+        Node x = delete(root, k);
+        if (x == null)
+            return false;
+
+        root = x;
+        return true;
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at <code>x</code> with one
+     * occurrence of <code>k</code> removed, or <code>null</code> if
+     * <code>k</code> is not in the subtree.
+     */
+    private Node delete(Node x, Comparable k)
+    {
+        if (x == nil)
+            return null;
+
+        int c = compare(k, x.data);
+        if (c < 0) {
+            Node left = delete(x.left, k);
+            return left == null ? null : balance(x.data, left, x.right);
+        }
+        if (c > 0) {
+            Node right = delete(x.right, k);
+            return right == null ? null : balance(x.data, x.left, right);
+        }
+
+        if (x.left == nil)
+            return x.right;
+        if (x.right == nil)
+            return x.left;
+
+        // Neither child is nil: the successor's key takes x's place.
+        Node y = x.right;
+        while (y.left != nil)
+            y = y.left;
+        return balance(y.data, x.left, deleteMinimum(x.right));
+    }
+
+    /**
+     * Returns a copy of the subtree rooted at <code>x</code> without
+     * its minimum node.
+     */
+    private static Node deleteMinimum(Node x)
+    {
+        if (x.left == nil)
+            return x.right;
+
+        return balance(x.data, deleteMinimum(x.left), x.right);
+    }
+
+    /**
+     * Builds a node from a key and two AVL subtrees whose heights
+     * differ by at most two, rotating if needed so that the result is
+     * an AVL tree.
+     */
+    private static Node balance(Comparable data, Node left, Node right)
+    {
+        if (left.height > right.height + 1) {
+            if (left.left.height >= left.right.height)
+                return new Node(left.data, left.left, new Node(data, left.right, right));
+            Node lr = left.right;
+            return new Node(lr.data, new Node(left.data, left.left, lr.left),
+                            new Node(data, lr.right, right));
+        }
+
+        if (right.height > left.height + 1) {
+            if (right.right.height >= right.left.height)
+                return new Node(right.data, new Node(data, left, right.left), right.right);
+            Node rl = right.left;
+            return new Node(rl.data, new Node(data, left, rl.left),
+                            new Node(right.data, rl.right, right.right));
+        }
+
+        return new Node(data, left, right);
+    }
+
+    /**
+     * Returns the key in the tree equal to <code>k</code>, or
+     * <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E search(Comparable k)
+    {
+        Node x = root;
+        int c;
+
+        while (x != nil && (c = compare(k, x.data)) != 0)
+            x = c < 0 ? x.left : x.right;
+
+        return (E) x.data;
+    }
+
+    /**
+     * Returns the least key in the tree greater than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E successor(Comparable k)
+    {
+        Node x = root;
+        Comparable best = null;
+
+        while (x != nil) {
+            if (compare(k, x.data) < 0) {
+                best = x.data;
+                x = x.left;
+            }
+            else
+                x = x.right;
+        }
+
+        return (E) best;
+    }
+
+    /**
+     * Returns the greatest key in the tree less than <code>k</code>,
+     * or <code>null</code> if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E predecessor(Comparable k)
+    {
+        Node x = root;
+        Comparable best = null;
+
+        while (x != nil) {
+            if (compare(k, x.data) > 0) {
+                best = x.data;
+                x = x.right;
+            }
+            else
+                x = x.left;
+        }
+
+        return (E) best;
+    }
+
+    /**
+     * Returns the least key in the tree, or <code>null</code> if the
+     * tree is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E minimum()
+    {
+        Node x = root;
+        while (x.left != nil)
+            x = x.left;
+
+        return (E) x.data;
+    }
+
+    /**
+     * Returns the greatest key in the tree, or <code>null</code> if
+     * the tree is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E maximum()
+    {
+        Node x = root;
+        while (x.right != nil)
+            x = x.right;
+
+        return (E) x.data;
+    }
+
+    /**
+     * Traverses the current version of the tree in inorder, applying
+     * a <code>Visitor</code> to each key.  Updates made during the
+     * walk are not seen by it.
+     *
+     * @param visitor Object implementing <code>Visitor</code> whose
+     * <code>visit</code> method is applied to each key.
+     */
+    public void inorderWalk(BinaryTree.Visitor visitor)
+    {
+        inorderWalk(root, visitor);
+    }
+
+    private static void inorderWalk(Node x, BinaryTree.Visitor visitor)
+    {
+        if (x != nil) {
+            inorderWalk(x.left, visitor);
+            visitor.visit(x.data);
+            inorderWalk(x.right, visitor);
+        }
+    }
+
+    /**
+     * Returns the keys of the current version in inorder, separated
+     * by spaces.
+     */
+    public String toString()
+    {
+        final StringBuilder result = new StringBuilder();
+        inorderWalk(new BinaryTree.Visitor() {
+            public Object visit(Object handle) {
+                if (result.length() > 0)
+                    result.append(' ');
+                result.append(handle);
+                return null;
+            }
+        });
+
+        return result.toString();
+    }
+}
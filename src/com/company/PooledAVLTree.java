@@ -0,0 +1,108 @@
+package com.company;
+
+import java.util.Arrays;
+
+/**
+ * AVL tree whose nodes live in parallel <code>int</code> arrays
+ * instead of <code>Node</code> objects.  A node is identified by its
+ * index in the arrays; index <code>NIL</code> is the sentinel, and
+ * the indices of deleted nodes are kept on a free list for reuse.
+ *
+ * <p>
+ *
+ * This class holds the tree structure only, and runs the algorithms
+ * of <code>IndexedAVLTree</code> on it.  Subclasses keep the keys in
+ * an array of their own, indexed like the structure arrays, and
+ * implement the operations that compare keys.
+ */
+public abstract class PooledAVLTree extends IndexedAVLTree {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Left child of each node. */
+    protected int[] left;
+
+    /** Right child of each node. */
+    protected int[] right;
+
+    /** Parent of each node. */
+    protected int[] parent;
+
+    /** Height of each node; the sentinel has height 0. */
+    protected int[] height;
+
+    /**
+     * Creates an empty tree.
+     */
+    protected PooledAVLTree()
+    {
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        parent = new int[INITIAL_CAPACITY];
+        height = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Resizes the subclass's key array to a new capacity, keeping
+     * the keys it already holds.
+     *
+     * @param capacity The new number of slots.
+     */
+    protected abstract void resizeKeys(int capacity);
+
+    protected final int left(int x)
+    {
+        return left[x];
+    }
+
+    protected final int right(int x)
+    {
+        return right[x];
+    }
+
+    protected final int parent(int x)
+    {
+        return parent[x];
+    }
+
+    protected final int height(int x)
+    {
+        return height[x];
+    }
+
+    protected final void setLeft(int x, int value)
+    {
+        left[x] = value;
+    }
+
+    protected final void setRight(int x, int value)
+    {
+        right[x] = value;
+    }
+
+    protected final void setParent(int x, int value)
+    {
+        parent[x] = value;
+    }
+
+    protected final void setHeight(int x, int value)
+    {
+        height[x] = value;
+    }
+
+    /**
+     * Doubles the capacity of the structure and key arrays once they
+     * are full.
+     */
+    protected void ensureCapacity(int x)
+    {
+        if (x < left.length)
+            return;
+
+        int capacity = left.length * 2;
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        height = Arrays.copyOf(height, capacity);
+        resizeKeys(capacity);
+    }
+}
@@ -0,0 +1,331 @@
+package com.company;
+
+import java.util.Comparator;
+
+/**
+ * Red-black tree from Chapter 13 of <i>Introduction to
+ * Algorithms</i>.  Each node is colored red or black so that no red
+ * node has a red child and every path from a node down to
+ * <code>nil</code> passes the same number of black nodes, which keeps
+ * the height within 2 log2(n + 1).
+ *
+ * <p>
+ *
+ * Where <code>AVLTree</code> walks back to the root after every
+ * update to recompute heights and subtree sizes, an insert here makes
+ * at most two rotations and a delete at most three, and the fix-up
+ * climbs only while it is recoloring, O(1) steps amortized.  Updates
+ * therefore write to fewer nodes.  The price is a somewhat taller
+ * tree and no subtree sizes, so there are no <code>select</code> and
+ * <code>rank</code>.
+ *
+ * <p>
+ *
+ * As <code>BinarySearchTree</code> asks of subclasses, the tree has a
+ * <code>nil</code> of its own type, an <code>RBNode</code> that is
+ * always black.
+ */
+public class RedBlackTree<E> extends BinarySearchTree<E> {
+    /** Colors of an <code>RBNode</code>. */
+    protected static final boolean RED = true, BLACK = false;
+
+    /**
+     * Node of a red-black tree, which adds a color to the fields of a
+     * <code>Node</code>.
+     */
+    protected class RBNode extends Node
+    {
+        protected boolean color;
+
+        /**
+         * Initializes a red node with the data and makes other
+         * pointers nil.
+         *
+         * @param data Data to save in the node.
+         */
+        public RBNode(Comparable<? extends E> data)
+        {
+            super(data);
+            color = RED;
+        }
+    }
+
+    /**
+     * Creates an empty red-black tree.
+     */
+    public RedBlackTree()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates an empty red-black tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public RedBlackTree(Comparator<? super E> comparator)
+    {
+        super(comparator);
+        RBNode sentinel = new RBNode(null);
+        sentinel.color = BLACK;
+        setNil(sentinel);
+        root = nil;
+    }
+
+    private boolean isRed(Node x)
+    {
+        return ((RBNode) x).color == RED;
+    }
+
+    private void setColor(Node x, boolean color)
+    {
+        ((RBNode) x).color = color;
+    }
+
+    /**
+     * Inserts data into the tree, creating a new node for this data,
+     * and restores the red-black properties.
+     *
+     * @param data Data to be inserted into the tree.
+     * @return A reference to the <code>Node</code> object created.
+     */
+    public Object insert(Comparable data)
+    {
+        RBNode z = new RBNode(data);
+        treeInsert(z);
+        insertFixup(z);
+        count++;
+
+        return z;
+    }
+
+    /**
+     * Restores the red-black properties after the red node
+     * <code>z</code> has been linked in, as RB-INSERT-FIXUP does.
+     */
+    private void insertFixup(Node z)
+    {
+        while (isRed(z.parent)) {
+            Node p = z.parent;
+            Node g = p.parent;
+
+            if (p == g.left) {
+                Node y = g.right;
+                if (isRed(y)) {
+                    setColor(p, BLACK);
+                    setColor(y, BLACK);
+                    setColor(g, RED);
+                    z = g;
+                }
+                else {
+                    if (z == p.right) {
+                        z = p;
+                        leftRotate(z);
+                        p = z.parent;
+                    }
+                    setColor(p, BLACK);
+                    setColor(g, RED);
+                    rightRotate(g);
+                }
+            }
+            else {
+                Node y = g.left;
+                if (isRed(y)) {
+                    setColor(p, BLACK);
+                    setColor(y, BLACK);
+                    setColor(g, RED);
+                    z = g;
+                }
+                else {
+                    if (z == p.left) {
+                        z = p;
+                        rightRotate(z);
+                        p = z.parent;
+                    }
+                    setColor(p, BLACK);
+                    setColor(g, RED);
+                    leftRotate(g);
+                }
+            }
+        }
+
+        setColor(root, BLACK);
+    }
+
+    /**
+     * Unlinks a node as RB-DELETE does, moving its successor into its
+     * place if it has two children, and restores the red-black
+     * properties.  As in <code>BinarySearchTree</code>, nodes are
+     * relinked rather than keys moved between them, so handles to
+     * other nodes stay valid.
+     *
+     * @param z The node to be unlinked, which is not the sentinel.
+     */
+    protected void treeDelete(Node z)
+    {
+        Node y = z;
+        boolean removedColor = isRed(y);
+        Node x;         // Takes the place of the node removed from its position
+
+        if (z.left == nil) {
+            x = z.right;
+            transplant(z, z.right);
+        }
+        else if (z.right == nil) {
+            x = z.left;
+            transplant(z, z.left);
+        }
+        else {
+            y = treeMinimum(z.right);
+            removedColor = isRed(y);
+            x = y.right;
+            if (y.parent == z)
+                x.parent = y;   // even when x is nil, for deleteFixup
+            else {
+                transplant(y, y.right);
+                y.right = z.right;
+                y.right.parent = y;
+            }
+            transplant(z, y);
+            y.left = z.left;
+            y.left.parent = y;
+            setColor(y, isRed(z));
+        }
+
+        if (removedColor == BLACK)
+            deleteFixup(x);
+        nil.parent = nil;
+    }
+
+    /**
+     * Replaces the subtree rooted at <code>u</code> with the one
+     * rooted at <code>v</code>, setting <code>v.parent</code> even if
+     * <code>v</code> is <code>nil</code>.
+     */
+    private void transplant(Node u, Node v)
+    {
+        if (u.parent == nil)
+            root = v;
+        else if (u == u.parent.left)
+            u.parent.left = v;
+        else
+            u.parent.right = v;
+        v.parent = u.parent;
+    }
+
+    /**
+     * Restores the red-black properties after a black node has been
+     * removed from above <code>x</code>, as RB-DELETE-FIXUP does.
+     */
+    private void deleteFixup(Node x)
+    {
+        while (x != root && !isRed(x)) {
+            if (x == x.parent.left) {
+                Node w = x.parent.right;
+                if (isRed(w)) {
+                    setColor(w, BLACK);
+                    setColor(x.parent, RED);
+                    leftRotate(x.parent);
+                    w = x.parent.right;
+                }
+                if (!isRed(w.left) && !isRed(w.right)) {
+                    setColor(w, RED);
+                    x = x.parent;
+                }
+                else {
+                    if (!isRed(w.right)) {
+                        setColor(w.left, BLACK);
+                        setColor(w, RED);
+                        rightRotate(w);
+                        w = x.parent.right;
+                    }
+                    setColor(w, isRed(x.parent));
+                    setColor(x.parent, BLACK);
+                    setColor(w.right, BLACK);
+                    leftRotate(x.parent);
+                    x = root;
+                }
+            }
+            else {
+                Node w = x.parent.left;
+                if (isRed(w)) {
+                    setColor(w, BLACK);
+                    setColor(x.parent, RED);
+                    rightRotate(x.parent);
+                    w = x.parent.left;
+                }
+                if (!isRed(w.right) && !isRed(w.left)) {
+                    setColor(w, RED);
+                    x = x.parent;
+                }
+                else {
+                    if (!isRed(w.left)) {
+                        setColor(w.right, BLACK);
+                        setColor(w, RED);
+                        leftRotate(w);
+                        w = x.parent.left;
+                    }
+                    setColor(w, isRed(x.parent));
+                    setColor(x.parent, BLACK);
+                    setColor(w.left, BLACK);
+                    rightRotate(x.parent);
+                    x = root;
+                }
+            }
+        }
+
+        setColor(x, BLACK);
+    }
+
+    /**
+     * Checks every invariant of the tree in O(n) time: parent links,
+     * key order, the red-black properties, the node count and the
+     * black sentinel.
+     *
+     * @throws IllegalStateException naming the first invariant found
+     * broken.
+     */
+    public void verify()
+    {
+        if (isRed(nil) || nil.parent != nil)
+            throw new IllegalStateException("sentinel modified");
+        if (root.parent != nil)
+            throw new IllegalStateException("root has a parent");
+        if (isRed(root))
+            throw new IllegalStateException("red root");
+        verify(root);
+
+        int n = 0;
+        Node previous = nil;
+        for (Node x = minimum(); x != nil; x = successor(x), n++) {
+            if (previous != nil && compare(previous.data, x.data) > 0)
+                throw new IllegalStateException("keys out of order at " + x.data);
+            previous = x;
+        }
+        if (n != count)
+            throw new IllegalStateException("count " + count + " but " + n + " keys");
+    }
+
+    /**
+     * Checks the links and colors of each node of a subtree, and
+     * returns its black height.
+     */
+    private int verify(Node x)
+    {
+        if (x == nil)
+            return 1;
+
+        if (x.left != nil && x.left.parent != x || x.right != nil && x.right.parent != x)
+            throw new IllegalStateException("bad parent link below " + x.data);
+        if (isRed(x) && (isRed(x.left) || isRed(x.right)))
+            throw new IllegalStateException("red node with a red child at " + x.data);
+
+        int left = verify(x.left);
+        if (left != verify(x.right))
+            throw new IllegalStateException("black heights differ at " + x.data);
+
+        return left + (isRed(x) ? 0 : 1);
+    }
+}
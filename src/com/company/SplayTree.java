@@ -0,0 +1,168 @@
+package com.company;
+
+import java.util.Comparator;
+
+/**
+ * Self-adjusting binary search tree, as described by Sleator and
+ * Tarjan.  Every search, insert and delete ends by splaying: the node
+ * reached is rotated up to the root, zig-zig or zig-zag two levels at
+ * a time, which also roughly halves the depth of the nodes on its
+ * path.
+ *
+ * <p>
+ *
+ * No balance information is kept, and a single operation may cost
+ * O(n), but any sequence of m operations costs O(m log n).  A key
+ * that was just accessed is at the root, and a small set of keys
+ * accessed over and over stays near the top, so a skewed lookup
+ * stream is served in close to constant time per lookup.  Only
+ * <code>search</code>, <code>iterativeSearch</code>,
+ * <code>insert</code> and <code>delete</code> splay; walks,
+ * iterators, <code>successor</code> and the other navigation methods
+ * leave the shape alone.
+ */
+public class SplayTree<E> extends BinarySearchTree<E> {
+    /**
+     * Creates an empty splay tree.
+     */
+    public SplayTree()
+    {
+        super();
+    }
+
+    /**
+     * Creates an empty splay tree whose keys are ordered by a
+     * <code>Comparator</code>.
+     *
+     * @param comparator Orders the keys, or <code>null</code> for
+     * their natural order.
+     */
+    public SplayTree(Comparator<? super E> comparator)
+    {
+        super(comparator);
+    }
+
+    /**
+     * Inserts data into the tree and splays its new node to the root.
+     *
+     * @param data Data to be inserted into the tree.
+     * @return A reference to the <code>Node</code> object created.
+     */
+    public Object insert(Comparable data)
+    {
+        Node z = (Node) super.insert(data);
+        splay(z);
+
+        return z;
+    }
+
+    /**
+     * Searches the tree for a node with a given key, then splays the
+     * node found, or the last node visited if there is none.  Works
+     * iteratively, since a splay tree can be as deep as it has nodes.
+     *
+     * @param k The key being searched for.
+     * @return A reference to a <code>Node</code> object with key
+     * <code>k</code> if such a node exists, or a reference to the
+     * sentinel <code>nil</code> if no node has key <code>k</code>.
+     */
+    public Node search(Comparable k)
+    {
+        Node x = root;
+        Node last = nil;
+        int c;
+
+        while (x != nil && (c = compare(k, x.data)) != 0) {
+            last = x;
+            x = c < 0 ? x.left : x.right;
+        }
+
+        splay(x != nil ? x : last);
+        return x;
+    }
+
+    /**
+     * Searches the tree for a node with a given key, splaying as
+     * <code>search</code> does.
+     *
+     * @param k The key being searched for.
+     * @return A reference to a <code>Node</code> object with key
+     * <code>k</code> if such a node exists, or a reference to the
+     * sentinel <code>nil</code> if no node has key <code>k</code>.
+     */
+    public Node iterativeSearch(Comparable<Comparable> k)
+    {
+        return search(k);
+    }
+
+    /**
+     * Removes a node from the tree and splays the deepest node on the
+     * path that the delete walked which is still in the tree: the
+     * deleted node's parent if it had at most one child, and
+     * otherwise the successor's old parent, or the successor itself
+     * when that parent was the deleted node.  Deleting the root of a
+     * tree with one child leaves that child at the root, with nothing
+     * to splay.  The splay comes after <code>treeDelete</code> has
+     * finished, as that may call itself to move a successor.
+     *
+     * @param node The node to be removed.
+     * @throws DeleteSentinelException if there is an attempt to
+     * delete the sentinel <code>nil</code>.
+     */
+    public void delete(Object node)
+    {
+        Node z = (Node) node;
+        Node deepest = z.parent;
+
+        if (z.left != nil && z.right != nil) {
+            Node y = successor(z);
+            deepest = y.parent == z ? y : y.parent;
+        }
+
+        super.delete(z);
+        splay(deepest);
+    }
+
+    /**
+     * Rotates a node up to the root.  While the node has a
+     * grandparent, a zig-zig step rotates the parent's edge first when
+     * node and parent are children on the same side, and a zig-zag
+     * step rotates the node up twice otherwise; a final zig step
+     * lifts it over the root.
+     *
+     * @param x The node to splay; <code>nil</code> is left alone.
+     */
+    protected void splay(Node x)
+    {
+        if (x == nil)
+            return;
+
+        while (x.parent != nil) {
+            Node p = x.parent;
+            Node g = p.parent;
+
+            if (g == nil) {
+                if (x == p.left)
+                    rightRotate(p);
+                else
+                    leftRotate(p);
+            }
+            else if (x == p.left && p == g.left) {
+                rightRotate(g);
+                rightRotate(p);
+            }
+            else if (x == p.right && p == g.right) {
+                leftRotate(g);
+                leftRotate(p);
+            }
+            else if (x == p.left) {
+                rightRotate(p);
+                leftRotate(g);
+            }
+            else {
+                leftRotate(p);
+                rightRotate(g);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.company;
+
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Range of an <code>AVLTree</code> seen by a view of
+ * <code>AVLTreeSet</code> or <code>AVLTreeMap</code>: optional lower
+ * and upper bounds, each inclusive or not, and a direction.  It
+ * answers the questions both views ask, which node of the range is
+ * first, last or next to a key, and derives the bounds of subviews,
+ * checked as <code>java.util.TreeMap</code> checks them.
+ *
+ * <p>
+ *
+ * Bounds are kept in tree order whatever the direction; the methods
+ * taking or returning keys in the order of the view say so.
+ */
+final class TreeBounds<E> {
+    /** The tree seen through the bounds. */
+    final AVLTree<E> tree;
+
+    /** Lower bound, or <code>null</code> for none. */
+    final Comparable lo;
+
+    final boolean loInclusive;
+
+    /** Upper bound, or <code>null</code> for none. */
+    final Comparable hi;
+
+    final boolean hiInclusive;
+
+    /** Whether the view lists the keys from greatest to least. */
+    final boolean descending;
+
+    /**
+     * Creates unbounded, ascending bounds over a whole tree.
+     */
+    TreeBounds(AVLTree<E> tree)
+    {
+        this(tree, null, false, null, false, false);
+    }
+
+    private TreeBounds(AVLTree<E> tree, Comparable lo, boolean loInclusive,
+                       Comparable hi, boolean hiInclusive, boolean descending)
+    {
+        this.tree = tree;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.descending = descending;
+    }
+
+    private boolean tooLow(Comparable k)
+    {
+        if (lo == null)
+            return false;
+        int c = tree.compare(k, lo);
+        return c < 0 || (c == 0 && !loInclusive);
+    }
+
+    private boolean tooHigh(Comparable k)
+    {
+        if (hi == null)
+            return false;
+        int c = tree.compare(k, hi);
+        return c > 0 || (c == 0 && !hiInclusive);
+    }
+
+    /**
+     * Returns <code>true</code> if a key lies within the bounds.
+     */
+    boolean inRange(Comparable k)
+    {
+        return !tooLow(k) && !tooHigh(k);
+    }
+
+    private boolean inClosedRange(Comparable k)
+    {
+        return (lo == null || tree.compare(k, lo) >= 0) && (hi == null || tree.compare(k, hi) <= 0);
+    }
+
+    /**
+     * Returns the number of keys within the bounds, in O(log n) time.
+     */
+    int size()
+    {
+        return tree.rangeCount(lo, loInclusive, hi, hiInclusive);
+    }
+
+    /**
+     * Returns the node of the least key within the bounds, in tree
+     * order, if <code>last</code> is <code>false</code>, of the
+     * greatest otherwise, or <code>nil</code>.
+     */
+    BinaryTree<E>.Node edge(boolean last)
+    {
+        BinaryTree<E>.Node x = last ? tree.upperBound(hi, hiInclusive) : tree.lowerBound(lo, loInclusive);
+        return within(x);
+    }
+
+    /**
+     * Returns the node of the key before <code>k</code> in the order
+     * of the view (or equal to it if <code>inclusive</code>), or
+     * <code>nil</code>.
+     */
+    BinaryTree<E>.Node lower(Comparable k, boolean inclusive)
+    {
+        return descending ? above(k, inclusive) : below(k, inclusive);
+    }
+
+    /**
+     * Returns the node of the key after <code>k</code> in the order of
+     * the view (or equal to it if <code>inclusive</code>), or
+     * <code>nil</code>.
+     */
+    BinaryTree<E>.Node higher(Comparable k, boolean inclusive)
+    {
+        return descending ? below(k, inclusive) : above(k, inclusive);
+    }
+
+    /**
+     * Returns the node of the greatest key within the bounds, in tree
+     * order, below <code>k</code> (or equal to it if
+     * <code>inclusive</code>), or <code>nil</code>.  A key above the
+     * bounds yields the last node within them.
+     */
+    private BinaryTree<E>.Node below(Comparable k, boolean inclusive)
+    {
+        BinaryTree<E>.Node x = tree.upperBound(k, inclusive);
+        if (!tree.isNil(x) && tooHigh(x.data))
+            x = tree.upperBound(hi, hiInclusive);
+
+        return within(x);
+    }
+
+    /**
+     * Returns the node of the least key within the bounds, in tree
+     * order, above <code>k</code> (or equal to it if
+     * <code>inclusive</code>), or <code>nil</code>.  A key below the
+     * bounds yields the first node within them.
+     */
+    private BinaryTree<E>.Node above(Comparable k, boolean inclusive)
+    {
+        BinaryTree<E>.Node x = tree.lowerBound(k, inclusive);
+        if (!tree.isNil(x) && tooLow(x.data))
+            x = tree.lowerBound(lo, loInclusive);
+
+        return within(x);
+    }
+
+    /** Returns a node if its key is within the bounds, or <code>nil</code>. */
+    private BinaryTree<E>.Node within(BinaryTree<E>.Node x)
+    {
+        return tree.isNil(x) || !inRange(x.data) ? tree.nil : x;
+    }
+
+    /**
+     * Returns the tree's comparator, <code>null</code> standing for
+     * the natural order, reversed for a descending view.
+     */
+    Comparator<? super E> comparator()
+    {
+        Comparator<? super E> comparator = tree.comparator();
+        return descending ? Collections.reverseOrder(comparator) : comparator;
+    }
+
+    /**
+     * Returns the same bounds in the other direction.
+     */
+    TreeBounds<E> reversed()
+    {
+        return new TreeBounds<E>(tree, lo, loInclusive, hi, hiInclusive, !descending);
+    }
+
+    /**
+     * Returns the bounds of the keys between two keys given in the
+     * order of the view.
+     *
+     * @throws IllegalArgumentException if a bound is outside these
+     * bounds, or the bounds are out of order.
+     */
+    TreeBounds<E> sub(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive)
+    {
+        if (descending)
+            return bounded(to, toInclusive, from, fromInclusive);
+        return bounded(from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * Returns the bounds of the keys before a key in the order of the
+     * view; see <code>sub</code>.
+     */
+    TreeBounds<E> head(Comparable to, boolean inclusive)
+    {
+        if (descending)
+            return bounded(to, inclusive, hi, hiInclusive);
+        return bounded(lo, loInclusive, to, inclusive);
+    }
+
+    /**
+     * Returns the bounds of the keys after a key in the order of the
+     * view; see <code>sub</code>.
+     */
+    TreeBounds<E> tail(Comparable from, boolean inclusive)
+    {
+        if (descending)
+            return bounded(lo, loInclusive, from, inclusive);
+        return bounded(from, inclusive, hi, hiInclusive);
+    }
+
+    /**
+     * Returns new bounds, given in tree order, in the same direction.
+     * As in <code>TreeMap</code>, an inclusive bound must lie within
+     * these bounds and an exclusive one within their closed range.
+     */
+    private TreeBounds<E> bounded(Comparable newLo, boolean newLoInclusive,
+                                  Comparable newHi, boolean newHiInclusive)
+    {
+        if (newLo != null && newHi != null && tree.compare(newLo, newHi) > 0)
+            throw new IllegalArgumentException("bounds out of order");
+        if (newLo != null && !(newLoInclusive ? inRange(newLo) : inClosedRange(newLo)))
+            throw new IllegalArgumentException("lower bound out of range");
+        if (newHi != null && !(newHiInclusive ? inRange(newHi) : inClosedRange(newHi)))
+            throw new IllegalArgumentException("upper bound out of range");
+
+        return new TreeBounds<E>(tree, newLo, newLoInclusive, newHi, newHiInclusive, descending);
+    }
+}